@@ -0,0 +1,29 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH suites with the GC profiler attached, so every result carries its
+ * allocation rate, and writes JSON results. Accepts the usual JMH command line, e.g.
+ * {@code java -jar benchmarks/target/benchmarks-test-dependencies.jar ChessBenchmarks -rff out.json}.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON);
+        if (cli.getResult().hasValue()) {
+            options.result(cli.getResult().get());
+        } else {
+            options.result("benchmarks/results/latest.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
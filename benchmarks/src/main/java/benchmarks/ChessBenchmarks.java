@@ -0,0 +1,89 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBenchmarks {
+    private static final String[] OPENING = {"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "d2d3", "g8f6"};
+    private static final String[] FOOLS_MATE = {"f2f3", "e7e5", "g2g4", "d8h4"};
+
+    private ChessGame middlegame;
+    private ChessGame foolsMate;
+    private ChessPiece queen;
+    private ChessPosition queenSquare;
+    private ChessPosition knightSquare;
+    private MoveList moves;
+
+    @Setup
+    public void setup() throws InvalidMoveException {
+        middlegame = play(OPENING);
+        middlegame.makeMove(move("d1e2"));
+        foolsMate = play(FOOLS_MATE);
+        queenSquare = ChessPosition.of(2, 5);
+        queen = middlegame.getBoard().getPiece(queenSquare);
+        knightSquare = ChessPosition.of(6, 3);
+        moves = new MoveList();
+    }
+
+    @Benchmark
+    public Collection<ChessMove> pieceMovesQueen() {
+        return queen.pieceMoves(middlegame.getBoard(), queenSquare);
+    }
+
+    @Benchmark
+    public Collection<ChessMove> validMovesKnight() {
+        return middlegame.validMoves(knightSquare);
+    }
+
+    @Benchmark
+    public int legalMovesAllPieces() {
+        moves.clear();
+        middlegame.legalMoves(moves);
+        return moves.size();
+    }
+
+    @Benchmark
+    public ChessGame newGame() {
+        return new ChessGame();
+    }
+
+    /**
+     * Eight plies from a new game; subtract {@link #newGame()} for the cost of makeMove.
+     */
+    @Benchmark
+    public ChessGame makeMoveOpening() throws InvalidMoveException {
+        return play(OPENING);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return foolsMate.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemateMiddlegame() {
+        return middlegame.isInStalemate(ChessGame.TeamColor.BLACK);
+    }
+
+    private static ChessGame play(String[] moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String m : moves) {
+            game.makeMove(move(m));
+        }
+        return game;
+    }
+
+    private static ChessMove move(String m) {
+        return new ChessMove(ChessPosition.of(m.charAt(1) - '0', m.charAt(0) - 'a' + 1),
+                ChessPosition.of(m.charAt(3) - '0', m.charAt(2) - 'a' + 1), null);
+    }
+}
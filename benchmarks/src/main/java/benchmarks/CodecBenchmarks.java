@@ -0,0 +1,41 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The binary game codec, for comparison with {@link GsonBenchmarks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmarks {
+    private ChessGame game;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws InvalidMoveException {
+        game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        bytes = ChessGameCodec.encode(game);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ChessGameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame decode() {
+        return ChessGameCodec.decode(bytes);
+    }
+}
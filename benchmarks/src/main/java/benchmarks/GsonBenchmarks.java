@@ -0,0 +1,57 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessJson;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonBenchmarks {
+    private Gson gson;
+    private Gson chessGson;
+    private GameData data;
+    private String json;
+    private String chessJson;
+
+    @Setup
+    public void setup() throws InvalidMoveException {
+        gson = new Gson();
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        data = new GameData(42, "alice", "bob", "benchmark", game);
+        json = gson.toJson(data);
+        chessGson = ChessJson.gson();
+        chessJson = chessGson.toJson(data);
+    }
+
+    @Benchmark
+    public String gameDataToJson() {
+        return gson.toJson(data);
+    }
+
+    @Benchmark
+    public GameData gameDataFromJson() {
+        return gson.fromJson(json, GameData.class);
+    }
+
+    @Benchmark
+    public String gameDataToJsonAdapters() {
+        return chessGson.toJson(data);
+    }
+
+    @Benchmark
+    public GameData gameDataFromJsonAdapters() {
+        return chessGson.fromJson(chessJson, GameData.class);
+    }
+}
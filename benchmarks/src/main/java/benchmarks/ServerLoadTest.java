@@ -0,0 +1,126 @@
+package benchmarks;
+
+import dataaccess.InMemoryDataAccess;
+import model.AuthData;
+import server.Server;
+import service.UserService;
+import service.requests.RegisterRequest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the server's platform and virtual thread modes under many concurrent
+ * requests that block, standing in for database round trips. Every request is an
+ * authenticated {@code GET /game?view=summary}, and every token lookup sleeps for the
+ * configured latency.
+ * <p>
+ * Arguments: concurrent requests (default 500), total requests per mode (default
+ * 10000), lookup latency in milliseconds (default 20).
+ */
+public class ServerLoadTest {
+
+    /** An in-memory store whose token lookups take as long as a database query would. */
+    private static class SlowDataAccess extends InMemoryDataAccess {
+        private final long latencyMillis;
+
+        SlowDataAccess(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Optional<AuthData> getAuth(String token) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getAuth(token);
+        }
+    }
+
+    private record Result(double requestsPerSecond, long p50Micros, long p99Micros, long maxMicros, int errors,
+                          int peakThreads) {}
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        System.out.printf("%d concurrent, %d requests, %d ms per token lookup%n", concurrency, requests, latency);
+        for (boolean virtual : new boolean[] {false, true}) {
+            Result r = run(virtual, concurrency, requests, latency);
+            System.out.printf("%-8s %8.0f req/s  p50 %6.1f ms  p99 %7.1f ms  max %7.1f ms  errors %d  peak threads %d%n",
+                    virtual ? "virtual" : "platform", r.requestsPerSecond(), r.p50Micros() / 1000.0,
+                    r.p99Micros() / 1000.0, r.maxMicros() / 1000.0, r.errors(), r.peakThreads());
+        }
+    }
+
+    private static Result run(boolean virtual, int concurrency, int requests, long latency) throws Exception {
+        SlowDataAccess dao = new SlowDataAccess(latency);
+        String token = new UserService(dao).register(new RegisterRequest("load", "password", "load@example.com")).authToken();
+        Server server = new Server(dao, virtual);
+        int port = server.run(0);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder().executor(callers).build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/game?view=summary"))
+                    .header("authorization", token)
+                    .GET()
+                    .build();
+
+            // Warm up the connections and the handlers.
+            send(client, request, callers, Math.min(concurrency, 200), Math.min(requests, 1_000), new long[requests]);
+            threads.resetPeakThreadCount();
+
+            long[] latencies = new long[requests];
+            long start = System.nanoTime();
+            int errors = send(client, request, callers, concurrency, requests, latencies);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latencies);
+            return new Result(requests / seconds, latencies[requests / 2] / 1000, latencies[requests * 99 / 100] / 1000,
+                    latencies[requests - 1] / 1000, errors, threads.getPeakThreadCount());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Sends {@code requests} requests with at most {@code concurrency} in flight.
+     *
+     * @return how many failed
+     */
+    private static int send(HttpClient client, HttpRequest request, ExecutorService callers, int concurrency,
+                            int requests, long[] latencies) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger errors = new AtomicInteger();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            callers.execute(() -> {
+                long sent = System.nanoTime();
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                        errors.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                } finally {
+                    latencies[index] = System.nanoTime() - sent;
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(concurrency);
+        return errors.get();
+    }
+}
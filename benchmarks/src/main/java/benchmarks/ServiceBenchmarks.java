@@ -0,0 +1,69 @@
+package benchmarks;
+
+import dataaccess.DataAccessException;
+import dataaccess.GameQuery;
+import dataaccess.InMemoryDataAccess;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+import service.GameService;
+import service.UserService;
+import service.requests.CreateGameRequest;
+import service.requests.JoinGameRequest;
+import service.requests.LoginRequest;
+import service.requests.RegisterRequest;
+import service.results.LoginResult;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmarks {
+    private InMemoryDataAccess dao;
+    private GameService gameService;
+    private UserService userService;
+    private String token;
+    private GameData emptyGame;
+    private JoinGameRequest join;
+    private LoginRequest login;
+
+    @Setup
+    public void setup() throws DataAccessException {
+        dao = new InMemoryDataAccess();
+        gameService = new GameService(dao);
+        userService = new UserService(dao);
+        token = userService.register(new RegisterRequest("bench", "password", "bench@example.com")).authToken();
+        int gameID = gameService.createGame(token, new CreateGameRequest("benchmark")).gameID();
+        emptyGame = dao.getGame(gameID).orElseThrow();
+        join = new JoinGameRequest("WHITE", gameID);
+        login = new LoginRequest("bench", "password");
+    }
+
+    /**
+     * Claims the white seat, then frees it again with a direct DAO write.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void joinGame() throws DataAccessException {
+        gameService.joinGame(token, join);
+        GameData joined = dao.getGame(emptyGame.gameID()).orElseThrow();
+        dao.updateGame(new GameData(joined.gameID(), null, null, joined.gameName(), joined.game(), joined.version()));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object listGames() throws DataAccessException {
+        return gameService.listGames(token, GameQuery.firstPage(GameService.MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Dominated by BCrypt.checkpw at the default cost factor.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public LoginResult login() throws DataAccessException {
+        return userService.login(login);
+    }
+}
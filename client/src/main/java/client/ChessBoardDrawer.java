@@ -103,7 +103,7 @@ public class ChessBoardDrawer {
 
     private String cellString(ChessBoard board, int rank, int file) {
         try {
-            ChessPosition pos = new ChessPosition(rank, file);
+            ChessPosition pos = ChessPosition.of(rank, file);
             ChessPiece p = board.getPiece(pos);
             if (p == null) {
                 return EscapeSequences.EMPTY;
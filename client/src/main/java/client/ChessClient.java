@@ -240,7 +240,7 @@ public class ChessClient {
 
     private boolean isLoggedIn() {
         try {
-            facade.listGames();
+            facade.checkSession();
             return true;
         } catch (Exception e) {
             return false;
@@ -1,20 +1,25 @@
 package client;
 
+import chess.ChessGame;
+import chess.ChessJson;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import model.GameData;
+import model.GameSummary;
 import service.requests.*;
 import service.results.*;
 import java.io.*;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ServerFacade {
 
     private final String serverUrl;
     private String authToken;   // stored after login/register
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
 
     public ServerFacade(String serverUrl) {
         this.serverUrl = serverUrl;
@@ -47,18 +52,53 @@ public class ServerFacade {
         return makeRequest("/game", "POST", request, CreateGameResult.class, authToken);
     }
 
-    public record ListGamesResult(GameData[] games) {}
-
+    /**
+     * Lists every game, following the server's pages until the last one.
+     */
     public GameData[] listGames() throws Exception {
         Type responseType = new TypeToken<ListGamesResult>() {}.getType();
-        ListGamesResult result = makeRequest("/game", "GET", null, responseType, authToken);
-        return result.games();
+        List<GameData> games = new ArrayList<>();
+        Integer cursor = null;
+        do {
+            ListGamesResult page = makeRequest(cursor == null ? "/game" : "/game?after=" + cursor,
+                    "GET", null, responseType, authToken);
+            games.addAll(page.games());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return games.toArray(new GameData[0]);
+    }
+
+    /**
+     * Lists every game without its board, which is much cheaper than {@link #listGames()}.
+     */
+    public GameSummary[] listGameSummaries() throws Exception {
+        Type responseType = new TypeToken<ListGameSummariesResult>() {}.getType();
+        List<GameSummary> games = new ArrayList<>();
+        Integer cursor = null;
+        do {
+            ListGameSummariesResult page = makeRequest("/game?view=summary" + (cursor == null ? "" : "&after=" + cursor),
+                    "GET", null, responseType, authToken);
+            games.addAll(page.games());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return games.toArray(new GameSummary[0]);
+    }
+
+    /**
+     * Checks that the stored token is still accepted, by asking for a single game.
+     */
+    public void checkSession() throws Exception {
+        makeRequest("/game?view=summary&limit=1", "GET", null, null, authToken);
     }
 
     public void joinGame(JoinGameRequest request) throws Exception {
         makeRequest("/game", "PUT", request, null, authToken);
     }
 
+    public ChessGame makeMove(MakeMoveRequest request) throws Exception {
+        return makeRequest("/game/move", "PUT", request, ChessGame.class, authToken);
+    }
+
     private <T> T makeRequest(String path,
                               String method,
                               Object requestObj,
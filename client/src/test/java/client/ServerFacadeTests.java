@@ -10,6 +10,9 @@ import service.requests.*;
 import service.results.*;
 import static org.junit.jupiter.api.Assertions.*;
 import model.GameData;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class ServerFacadeTests {
@@ -127,6 +130,17 @@ public class ServerFacadeTests {
         assertTrue(games.length >= 2);
     }
 
+    @Test
+    public void listGamesFollowsPages() throws Exception {
+        facade.register(new RegisterRequest("list_many", "pw", "list_many@example.com"));
+        int before = facade.listGames().length;
+        for (int i = 0; i < 105; i++) {
+            facade.createGame(new CreateGameRequest("Many" + i));
+        }
+        assertEquals(before + 105, facade.listGames().length);
+        assertEquals(before + 105, facade.listGameSummaries().length);
+    }
+
     @Test
     public void listGamesNegative() throws Exception {
         assertThrows(Exception.class, () -> facade.listGames());
@@ -148,4 +162,24 @@ public class ServerFacadeTests {
         JoinGameRequest jr = new JoinGameRequest("MAGENTA", created.gameID());
         assertThrows(Exception.class, () -> facade.joinGame(jr));
     }
+
+    @Test
+    public void makeMovePositive() throws Exception {
+        facade.register(new RegisterRequest("move_ok", "pw", "move_ok@example.com"));
+        CreateGameResult created = facade.createGame(new CreateGameRequest("MoveMe"));
+        facade.joinGame(new JoinGameRequest("WHITE", created.gameID()));
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessGame game = facade.makeMove(new MakeMoveRequest(created.gameID(), e4));
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(1, game.getPly());
+    }
+
+    @Test
+    public void makeMoveNegative() throws Exception {
+        facade.register(new RegisterRequest("move_bad", "pw", "move_bad@example.com"));
+        CreateGameResult created = facade.createGame(new CreateGameRequest("MoveBad"));
+        facade.joinGame(new JoinGameRequest("BLACK", created.gameID()));
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        assertThrows(Exception.class, () -> facade.makeMove(new MakeMoveRequest(created.gameID(), e4)));
+    }
 }
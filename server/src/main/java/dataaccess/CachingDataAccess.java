@@ -0,0 +1,220 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link DataAccess} that remembers auth token lookups, so authenticated requests
+ * stop costing a query each. Everything else goes straight to the wrapped instance.
+ * <p>
+ * Tokens are spread over independently locked stripes, each an LRU map, so lookups for
+ * different tokens rarely contend. Valid tokens are kept for {@code ttl}; unknown tokens
+ * are remembered as misses for the shorter {@code negativeTtl}, so a client retrying a
+ * bad token does not reach the database each time. {@link #deleteAuth} and
+ * {@link #clear} invalidate what they remove. Deletes made through another instance are
+ * only seen once the entry expires.
+ */
+public class CachingDataAccess implements DataAccess {
+    private static final int STRIPES = 16;
+
+    public record Stats(long hits, long negativeHits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long lookups = hits + negativeHits + misses;
+            return lookups == 0 ? 0 : (double) (hits + negativeHits) / lookups;
+        }
+    }
+
+    /** A cached lookup; {@code auth} is null for a token known not to exist. */
+    private record Entry(AuthData auth, long expiresAt) {}
+
+    private final DataAccess delegate;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingDataAccess(DataAccess delegate) {
+        this(delegate, 10_000, Duration.ofMinutes(10), Duration.ofSeconds(5));
+    }
+
+    public CachingDataAccess(DataAccess delegate, int maxTokens, Duration ttl, Duration negativeTtl) {
+        if (maxTokens < STRIPES) {
+            throw new IllegalArgumentException("Cache must hold at least " + STRIPES + " tokens");
+        }
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxTokens / STRIPES);
+        }
+    }
+
+    @Override
+    public Optional<AuthData> getAuth(String token) throws DataAccessException {
+        if (token == null) {
+            return delegate.getAuth(null);
+        }
+        Stripe stripe = stripeFor(token);
+        long now = System.nanoTime();
+        long generation;
+        synchronized (stripe) {
+            Entry entry = stripe.get(token);
+            if (entry != null && entry.expiresAt() - now > 0) {
+                (entry.auth() == null ? negativeHits : hits).increment();
+                return Optional.ofNullable(entry.auth());
+            }
+            generation = stripe.generation;
+        }
+        misses.increment();
+        Optional<AuthData> auth = delegate.getAuth(token);
+        long expiresAt = System.nanoTime() + (auth.isPresent() ? ttlNanos : negativeTtlNanos);
+        synchronized (stripe) {
+            // Skip the store if the token was invalidated while we were looking it up.
+            if (stripe.generation == generation) {
+                stripe.put(token, new Entry(auth.orElse(null), expiresAt));
+            }
+        }
+        return auth;
+    }
+
+    @Override
+    public void createAuth(AuthData a) throws DataAccessException {
+        delegate.createAuth(a);
+        Stripe stripe = stripeFor(a.authToken());
+        synchronized (stripe) {
+            stripe.put(a.authToken(), new Entry(a, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    @Override
+    public void deleteAuth(String token) throws DataAccessException {
+        try {
+            delegate.deleteAuth(token);
+        } finally {
+            if (token != null) {
+                Stripe stripe = stripeFor(token);
+                synchronized (stripe) {
+                    stripe.remove(token);
+                    stripe.generation++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try {
+            delegate.clear();
+        } finally {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.clear();
+                    stripe.generation++;
+                }
+            }
+        }
+    }
+
+    public Stats stats() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return new Stats(hits.sum(), negativeHits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    @Override
+    public void createUser(UserData u) throws DataAccessException {
+        delegate.createUser(u);
+    }
+
+    @Override
+    public Optional<UserData> getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public GameData createGame(GameData g) throws DataAccessException {
+        return delegate.createGame(g);
+    }
+
+    @Override
+    public Optional<GameData> getGame(int gameID) throws DataAccessException {
+        return delegate.getGame(gameID);
+    }
+
+    @Override
+    public List<GameData> listGames(GameQuery query) throws DataAccessException {
+        return delegate.listGames(query);
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException {
+        return delegate.listGameSummaries(query);
+    }
+
+    @Override
+    public boolean updateGame(GameData g) throws DataAccessException {
+        return delegate.updateGame(g);
+    }
+
+    @Override
+    public void claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        delegate.claimSeat(gameID, color, username);
+    }
+
+    @Override
+    public boolean appendMoves(int gameID, List<ChessMove> moves, ChessGame after) throws DataAccessException {
+        return delegate.appendMoves(gameID, moves, after);
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws DataAccessException {
+        return delegate.getMoves(gameID);
+    }
+
+    private Stripe stripeFor(String token) {
+        int h = token.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * One lock's share of the cache, in access order. {@code generation} moves on with
+     * every invalidation, so a lookup that raced one does not store a stale answer.
+     */
+    private final class Stripe extends LinkedHashMap<String, Entry> {
+        private final int capacity;
+        long generation;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
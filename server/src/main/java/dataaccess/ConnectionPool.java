@@ -0,0 +1,257 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of JDBC connections.
+ * <p>
+ * {@code minIdle} connections are opened up front, so the first requests do not pay
+ * for connecting. At most {@code maxSize} connections are handed out at once; callers beyond that wait
+ * up to the acquire timeout. Idle connections are reused most recently returned first,
+ * checked with {@link Connection#isValid} if they sat idle longer than the validation
+ * interval, and closed by a background sweep once idle past the idle timeout, down to
+ * {@code minIdle}. Callers get a proxy whose {@code close()} returns the connection to
+ * the pool after rolling back any open transaction.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    public record Settings(int minIdle, int maxSize, long idleTimeoutMillis, long acquireTimeoutMillis,
+                           long validationIntervalMillis, int validationTimeoutSeconds) {
+        public static Settings defaults() {
+            return new Settings(2, 10, 300_000, 5_000, 1_000, 2);
+        }
+    }
+
+    public record Stats(int open, int idle, long acquired, long timedOut, long totalWaitNanos, long maxWaitNanos) {
+        public long averageWaitNanos() {
+            return acquired == 0 ? 0 : totalWaitNanos / acquired;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    private final Deque<Idle> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ScheduledExecutorService sweeper;
+    private volatile boolean closed;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    private record Idle(Connection connection, long since) {}
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        if (settings.maxSize() < 1 || settings.minIdle() < 0 || settings.minIdle() > settings.maxSize()) {
+            throw new IllegalArgumentException("Invalid pool size: " + settings);
+        }
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(settings.idleTimeoutMillis() / 2, 10);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        prefill();
+    }
+
+    public Connection getConnection() throws DataAccessException {
+        if (closed) {
+            throw new DataAccessException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.acquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timedOut.increment();
+                maxWaitNanos.accumulate(System.nanoTime() - start);
+                throw new DataAccessException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        acquired.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+
+        try {
+            return wrap(takeIdleOrOpen());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw new DataAccessException("failed to get connection", e);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(open.get(), idle.size(), acquired.sum(), timedOut.sum(), totalWaitNanos.sum(), maxWaitNanos.get());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        sweeper.shutdownNow();
+        Idle entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry.connection());
+        }
+    }
+
+    /**
+     * Closes connections idle past the idle timeout, oldest first, keeping at least
+     * {@code minIdle} of them.
+     */
+    synchronized void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMillis());
+        Iterator<Idle> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && idle.size() > settings.minIdle()) {
+            Idle entry = oldestFirst.next();
+            if (entry.since() - cutoff < 0 && idle.remove(entry)) {
+                discard(entry.connection());
+            }
+        }
+    }
+
+    /**
+     * Opens {@code minIdle} connections. If the database cannot be reached yet, the
+     * rest are opened on demand instead.
+     */
+    private void prefill() {
+        try {
+            for (int i = 0; i < settings.minIdle(); i++) {
+                Connection connection = factory.open();
+                open.incrementAndGet();
+                idle.offerLast(new Idle(connection, System.nanoTime()));
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Leave it to getConnection to report the failure.
+        }
+    }
+
+    private Connection takeIdleOrOpen() throws SQLException {
+        long validateBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settings.validationIntervalMillis());
+        Idle entry;
+        while ((entry = idle.pollFirst()) != null) {
+            Connection connection = entry.connection();
+            if (entry.since() - validateBefore > 0 || isValid(connection)) {
+                return connection;
+            }
+            discard(connection);
+        }
+        Connection connection = factory.open();
+        open.incrementAndGet();
+        return connection;
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(settings.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(Connection connection) {
+        try {
+            if (closed || connection.isClosed()) {
+                discard(connection);
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.offerFirst(new Idle(connection, System.nanoTime()));
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Connection connection) {
+        open.decrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // The connection is being thrown away either way.
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new Lease(connection));
+    }
+
+    /**
+     * The caller's view of a pooled connection: closing it hands the connection back,
+     * and it cannot be used afterwards.
+     */
+    private final class Lease implements InvocationHandler {
+        private final Connection connection;
+        private boolean returned;
+
+        Lease(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(connection);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled" + connection;
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -2,6 +2,9 @@ package dataaccess;
 import model.UserData;
 import model.GameData;
 import model.AuthData;
+import model.GameSummary;
+import chess.ChessGame;
+import chess.ChessMove;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,8 +14,45 @@ public interface DataAccess {
     Optional<UserData> getUser(String username) throws DataAccessException;
     GameData createGame(GameData g) throws DataAccessException;
     Optional<GameData> getGame(int gameID) throws DataAccessException;
-    List<GameData> listGames() throws DataAccessException;
-    void updateGame(GameData g) throws DataAccessException;
+    List<GameData> listGames(GameQuery query) throws DataAccessException;
+    List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException;
+
+    /**
+     * Saves {@code g} if the stored game is still at {@code g.version()}, and moves the
+     * stored game to the next version. Logged moves past the ply of {@code g.game()}
+     * are dropped.
+     *
+     * @return false, changing nothing, if the game changed since {@code g} was read or
+     * no longer exists
+     */
+    boolean updateGame(GameData g) throws DataAccessException;
+
+    /**
+     * Seats {@code username} as {@code color} if that seat is empty, without reading or
+     * rewriting the board. Throws "already taken" if the seat is filled and
+     * "bad request" if there is no such game.
+     */
+    void claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException;
+
+    default boolean appendMove(int gameID, ChessMove move, ChessGame after) throws DataAccessException {
+        return appendMoves(gameID, List.of(move), after);
+    }
+
+    /**
+     * Logs {@code moves}, the last of which led to {@code after}, and stores
+     * {@code after} as the game's new state. The game's version goes up by one per move.
+     * <p>
+     * Only the ply is checked, not the version: the stored game must be exactly
+     * {@code moves.size()} plies behind {@code after}. A seat claimed since the caller
+     * read the game does not fail the append, and neither does an {@link #updateGame}
+     * that left the board at the same ply.
+     *
+     * @return false, changing nothing, if the stored game is at a different ply or no
+     * longer exists
+     */
+    boolean appendMoves(int gameID, List<ChessMove> moves, ChessGame after) throws DataAccessException;
+
+    List<ChessMove> getMoves(int gameID) throws DataAccessException;
     void createAuth(AuthData a) throws DataAccessException;
     Optional<AuthData> getAuth(String token) throws DataAccessException;
     void deleteAuth(String token) throws DataAccessException;
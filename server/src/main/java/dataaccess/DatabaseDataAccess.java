@@ -1,19 +1,32 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessJson;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.PackedMove;
 import model.*;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import java.sql.*;
 import java.util.*;
 
+/**
+ * MySQL-backed data access. Moves are appended to game_move one row each; the full game
+ * is only rewritten as a snapshot every {@link #SNAPSHOT_INTERVAL} plies (or by
+ * updateGame), and reads replay the moves logged after the latest snapshot.
+ */
 public class DatabaseDataAccess implements DataAccess {
-    private final Gson gson = new GsonBuilder().create();
+    static final int SNAPSHOT_INTERVAL = 20;
+
+    private final Gson gson = ChessJson.gson();
 
     @Override
     public void clear() throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM auth_token");
+            stmt.executeUpdate("DELETE FROM game_move");
             stmt.executeUpdate("DELETE FROM game");
             stmt.executeUpdate("DELETE FROM user");
         } catch (SQLException e) {
@@ -110,19 +123,22 @@ public class DatabaseDataAccess implements DataAccess {
 
     @Override
     public GameData createGame(GameData g) throws DataAccessException {
-        String sql = "INSERT INTO game (whiteUsername, blackUsername, gameName, gameState) VALUES (?, ?, ?, ?)";
-        String json = gson.toJson(g);
+        String sql = "INSERT INTO game (whiteUsername, blackUsername, gameName, gameBlob, snapshotPly, status, moveCount) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, g.whiteUsername());
             stmt.setString(2, g.blackUsername());
             stmt.setString(3, g.gameName());
-            stmt.setString(4, json);
+            stmt.setBytes(4, encodeGame(g.game()));
+            stmt.setInt(5, plyOf(g.game()));
+            stmt.setString(6, statusOf(g.game()));
+            stmt.setInt(7, plyOf(g.game()));
             stmt.executeUpdate();
             ResultSet rs = stmt.getGeneratedKeys();
             if (rs.next()) {
                 int id = rs.getInt(1);
-                return new GameData(id, g.whiteUsername(), g.blackUsername(), g.gameName(), g.game());
+                return new GameData(id, g.whiteUsername(), g.blackUsername(), g.gameName(), g.game(), 0);
             } else {
                 throw new DataAccessException("Failed to get generated game ID");
             }
@@ -133,41 +149,70 @@ public class DatabaseDataAccess implements DataAccess {
 
     @Override
     public Optional<GameData> getGame(int gameID) throws DataAccessException {
-        String sql = "SELECT whiteUsername, blackUsername, gameName, gameState, id FROM game WHERE id = ?";
+        String sql = "SELECT whiteUsername, blackUsername, gameName, gameState, gameBlob, snapshotPly, version, id FROM game WHERE id = ?";
+        String tail = "SELECT move FROM game_move WHERE game_id = ? AND ply > ? ORDER BY ply";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, gameID);
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                String white = rs.getString("whiteUsername");
-                String black = rs.getString("blackUsername");
-                String name  = rs.getString("gameName");
-                String json  = rs.getString("gameState");
-                int id       = rs.getInt("id");
-                GameData g = gson.fromJson(json, GameData.class);
-                return Optional.of(new GameData(id, white, black, name, g.game()));
+            if (!rs.next()) {
+                return Optional.empty();
             }
-            return Optional.empty();
+            String white = rs.getString("whiteUsername");
+            String black = rs.getString("blackUsername");
+            String name  = rs.getString("gameName");
+            int id       = rs.getInt("id");
+            int snapshot = rs.getInt("snapshotPly");
+            int version  = rs.getInt("version");
+            ChessGame game = readGame(rs);
+            try (PreparedStatement moves = conn.prepareStatement(tail)) {
+                moves.setInt(1, id);
+                moves.setInt(2, snapshot);
+                ResultSet mrs = moves.executeQuery();
+                while (mrs.next()) {
+                    replay(game, mrs.getInt("move"));
+                }
+            }
+            return Optional.of(new GameData(id, white, black, name, game, version));
         } catch (SQLException e) {
             throw new DataAccessException("Error retrieving game", e);
         }
     }
 
     @Override
-    public List<GameData> listGames() throws DataAccessException {
+    public List<GameData> listGames(GameQuery query) throws DataAccessException {
         List<GameData> games = new ArrayList<>();
-        String sql = "SELECT id, whiteUsername, blackUsername, gameName, gameState FROM game";
+        Map<Integer, ChessGame> byId = new HashMap<>();
+        String sql = pageSql("id, whiteUsername, blackUsername, gameName, gameState, gameBlob, version", query);
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                int id       = rs.getInt("id");
-                String white = rs.getString("whiteUsername");
-                String black = rs.getString("blackUsername");
-                String name  = rs.getString("gameName");
-                String json  = rs.getString("gameState");
-                GameData g = gson.fromJson(json, GameData.class);
-                games.add(new GameData(id, white, black, name, g.game()));
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindPage(stmt, query);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id       = rs.getInt("id");
+                    String white = rs.getString("whiteUsername");
+                    String black = rs.getString("blackUsername");
+                    String name  = rs.getString("gameName");
+                    ChessGame game = readGame(rs);
+                    byId.put(id, game);
+                    games.add(new GameData(id, white, black, name, game, rs.getInt("version")));
+                }
+            }
+            if (games.isEmpty()) {
+                return games;
+            }
+            String tails = "SELECT m.game_id, m.move FROM game_move m JOIN game g ON m.game_id = g.id "
+                    + "WHERE m.game_id IN (" + String.join(", ", Collections.nCopies(games.size(), "?")) + ") "
+                    + "AND m.ply > g.snapshotPly ORDER BY m.game_id, m.ply";
+            try (PreparedStatement moves = conn.prepareStatement(tails)) {
+                for (int i = 0; i < games.size(); i++) {
+                    moves.setInt(i + 1, games.get(i).gameID());
+                }
+                try (ResultSet mrs = moves.executeQuery()) {
+                    while (mrs.next()) {
+                        replay(byId.get(mrs.getInt("game_id")), mrs.getInt("move"));
+                    }
+                }
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error listing games", e);
@@ -176,22 +221,245 @@ public class DatabaseDataAccess implements DataAccess {
     }
 
     @Override
-    public void updateGame(GameData g) throws DataAccessException {
-        String sql = "UPDATE game SET whiteUsername = ?, blackUsername = ?, gameName = ?, gameState = ? WHERE id = ?";
-        String json = gson.toJson(g);
+    public List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException {
+        List<GameSummary> summaries = new ArrayList<>();
+        String sql = pageSql("id, whiteUsername, blackUsername, gameName, status, moveCount", query);
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, g.whiteUsername());
-            stmt.setString(2, g.blackUsername());
-            stmt.setString(3, g.gameName());
-            stmt.setString(4, json);
-            stmt.setInt(5, g.gameID());
-            int rows = stmt.executeUpdate();
-            if (rows == 0) {
-                throw new DataAccessException("Game not found");
+            bindPage(stmt, query);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(new GameSummary(
+                            rs.getInt("id"),
+                            rs.getString("whiteUsername"),
+                            rs.getString("blackUsername"),
+                            rs.getString("gameName"),
+                            ChessGame.GameStatus.valueOf(rs.getString("status")),
+                            rs.getInt("moveCount")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error listing games", e);
+        }
+        return summaries;
+    }
+
+    /**
+     * Builds the keyset query for one page: {@code id > cursor ORDER BY id LIMIT n}, so
+     * each page is an index range scan however deep it is. A player filter is one
+     * branch per seat, each walking that seat's username index in id order.
+     */
+    private static String pageSql(String columns, GameQuery query) {
+        String filters = (query.openSeat() ? " AND (whiteUsername IS NULL OR blackUsername IS NULL)" : "")
+                + (query.status() != null ? " AND status = ?" : "")
+                + " ORDER BY id LIMIT ?";
+        if (query.player() == null) {
+            return "SELECT " + columns + " FROM game WHERE id > ?" + filters;
+        }
+        return "(SELECT " + columns + " FROM game WHERE whiteUsername = ? AND id > ?" + filters + ") UNION ALL "
+                + "(SELECT " + columns + " FROM game WHERE blackUsername = ? AND NOT whiteUsername <=> ? AND id > ?" + filters + ") "
+                + "ORDER BY id LIMIT ?";
+    }
+
+    private static void bindPage(PreparedStatement stmt, GameQuery query) throws SQLException {
+        if (query.player() == null) {
+            bindFilters(stmt, 1, query);
+            return;
+        }
+        int i = 1;
+        stmt.setString(i++, query.player());
+        i = bindFilters(stmt, i, query);
+        stmt.setString(i++, query.player());
+        stmt.setString(i++, query.player());
+        i = bindFilters(stmt, i, query);
+        stmt.setInt(i, query.limit());
+    }
+
+    private static int bindFilters(PreparedStatement stmt, int i, GameQuery query) throws SQLException {
+        stmt.setInt(i++, query.afterId());
+        if (query.status() != null) {
+            stmt.setString(i++, query.status().name());
+        }
+        stmt.setInt(i++, query.limit());
+        return i;
+    }
+
+    @Override
+    public boolean updateGame(GameData g) throws DataAccessException {
+        String sql = "UPDATE game SET whiteUsername = ?, blackUsername = ?, gameName = ?, gameState = NULL, gameBlob = ?, "
+                + "snapshotPly = ?, status = ?, moveCount = ?, version = version + 1 WHERE id = ? AND version = ?";
+        // Logged moves past the new state belong to the board it replaces, and would be
+        // replayed onto it.
+        String truncate = "DELETE FROM game_move WHERE game_id = ? AND ply > ?";
+        int ply = plyOf(g.game());
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, g.whiteUsername());
+                stmt.setString(2, g.blackUsername());
+                stmt.setString(3, g.gameName());
+                stmt.setBytes(4, encodeGame(g.game()));
+                stmt.setInt(5, ply);
+                stmt.setString(6, statusOf(g.game()));
+                stmt.setInt(7, ply);
+                stmt.setInt(8, g.gameID());
+                stmt.setInt(9, g.version());
+                if (stmt.executeUpdate() != 1) {
+                    conn.rollback();
+                    return false;
+                }
+                try (PreparedStatement delete = conn.prepareStatement(truncate)) {
+                    delete.setInt(1, g.gameID());
+                    delete.setInt(2, ply);
+                    delete.executeUpdate();
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error updating game", e);
         }
     }
+
+    @Override
+    public void claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        String seat = color == ChessGame.TeamColor.WHITE ? "whiteUsername" : "blackUsername";
+        String claim = "UPDATE game SET " + seat + " = ?, version = version + 1 WHERE id = ? AND " + seat + " IS NULL";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(claim)) {
+            stmt.setString(1, username);
+            stmt.setInt(2, gameID);
+            if (stmt.executeUpdate() == 1) {
+                return;
+            }
+            // Nothing matched: tell a filled seat from a missing game.
+            try (PreparedStatement exists = conn.prepareStatement("SELECT 1 FROM game WHERE id = ?")) {
+                exists.setInt(1, gameID);
+                try (ResultSet rs = exists.executeQuery()) {
+                    throw new DataAccessException(rs.next() ? "already taken" : "bad request");
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error claiming seat", e);
+        }
+    }
+
+    @Override
+    public boolean appendMoves(int gameID, List<ChessMove> moves, ChessGame after) throws DataAccessException {
+        String insert = "INSERT INTO game_move (game_id, ply, move) VALUES (?, ?, ?)";
+        String summary = "UPDATE game SET status = ?, moveCount = ?, version = version + ? WHERE id = ? AND moveCount = ?";
+        String snapshot = "UPDATE game SET status = ?, moveCount = ?, version = version + ?, gameState = NULL, gameBlob = ?, "
+                + "snapshotPly = ? WHERE id = ? AND moveCount = ?";
+        int ply = after.getPly();
+        int firstPly = ply - moves.size() + 1;
+        // Snapshot whenever the batch reaches or passes a multiple of the interval.
+        boolean snapshotDue = ply / SNAPSHOT_INTERVAL > (firstPly - 1) / SNAPSHOT_INTERVAL;
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            // The row is updated first, so it stays locked against a concurrent
+            // updateGame until the moves are in, and only if it is still at the ply the
+            // moves follow on from.
+            try (PreparedStatement update = conn.prepareStatement(snapshotDue ? snapshot : summary)) {
+                update.setString(1, statusOf(after));
+                update.setInt(2, ply);
+                update.setInt(3, moves.size());
+                if (snapshotDue) {
+                    update.setBytes(4, encodeGame(after));
+                    update.setInt(5, ply);
+                }
+                update.setInt(snapshotDue ? 6 : 4, gameID);
+                update.setInt(snapshotDue ? 7 : 5, firstPly - 1);
+                if (update.executeUpdate() != 1) {
+                    conn.rollback();
+                    return false;
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+                    for (int i = 0; i < moves.size(); i++) {
+                        stmt.setInt(1, gameID);
+                        stmt.setInt(2, firstPly + i);
+                        stmt.setShort(3, (short) PackedMove.key(moves.get(i)));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            // A move row left at one of the plies fails the batch as a duplicate key.
+            if (e instanceof SQLIntegrityConstraintViolationException
+                    || e.getCause() instanceof SQLIntegrityConstraintViolationException) {
+                return false;
+            }
+            throw new DataAccessException("Error appending moves", e);
+        }
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws DataAccessException {
+        String sql = "SELECT move FROM game_move WHERE game_id = ? ORDER BY ply";
+        List<ChessMove> moves = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameID);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                moves.add(PackedMove.toChessMove(rs.getInt("move")));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error retrieving moves", e);
+        }
+        return moves;
+    }
+
+    private static int plyOf(ChessGame game) {
+        return game == null ? 0 : game.getPly();
+    }
+
+    private static String statusOf(ChessGame game) {
+        return (game == null ? ChessGame.GameStatus.IN_PROGRESS : game.getStatus()).name();
+    }
+
+    private static void replay(ChessGame game, int move) throws DataAccessException {
+        if (game == null) {
+            throw new DataAccessException("Error replaying moves onto a missing game");
+        }
+        try {
+            game.makeMove(PackedMove.toChessMove(move));
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException("Error replaying move " + PackedMove.toString(move), e);
+        }
+    }
+
+    private static byte[] encodeGame(ChessGame game) {
+        return game == null ? null : ChessGameCodec.encode(game);
+    }
+
+    /**
+     * Reads the game from the binary column, falling back to the JSON that rows written
+     * before the codec existed keep in gameState.
+     */
+    private ChessGame readGame(ResultSet rs) throws SQLException, DataAccessException {
+        byte[] blob = rs.getBytes("gameBlob");
+        if (blob != null) {
+            try {
+                return ChessGameCodec.decode(blob);
+            } catch (IllegalArgumentException e) {
+                throw new DataAccessException("Error decoding game", e);
+            }
+        }
+        String json = rs.getString("gameState");
+        if (json == null) {
+            return null;
+        }
+        GameData legacy = gson.fromJson(json, GameData.class);
+        return legacy == null ? null : legacy.game();
+    }
 }
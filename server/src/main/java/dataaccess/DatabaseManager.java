@@ -2,15 +2,24 @@ package dataaccess;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Properties;
 
+/**
+ * Creates the schema and hands out pooled connections. Besides the connection settings,
+ * db.properties may tune the pool with db.pool.minIdle, db.pool.maxSize,
+ * db.pool.idleTimeoutMs, db.pool.acquireTimeoutMs, db.pool.validationIntervalMs and
+ * db.pool.validationTimeoutSec; see {@link ConnectionPool.Settings#defaults()}.
+ */
 public class DatabaseManager {
     private static String databaseName;
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static ConnectionPool.Settings poolSettings;
+    private static ConnectionPool pool;
 
     static {
         loadPropertiesFromResources();
@@ -55,23 +64,93 @@ public class DatabaseManager {
                     whiteUsername VARCHAR(255),
                     blackUsername VARCHAR(255),
                     gameState TEXT,
+                    gameBlob BLOB,
+                    snapshotPly INT NOT NULL DEFAULT 0,
+                    status VARCHAR(16) NOT NULL DEFAULT 'IN_PROGRESS',
+                    moveCount INT NOT NULL DEFAULT 0,
+                    version INT NOT NULL DEFAULT 0,
                     FOREIGN KEY (whiteUsername) REFERENCES user(username),
                     FOREIGN KEY (blackUsername) REFERENCES user(username)
                  )
             """);
+            addColumnIfMissing(conn, "game", "gameBlob", "BLOB");
+            addColumnIfMissing(conn, "game", "snapshotPly", "INT NOT NULL DEFAULT 0");
+            addColumnIfMissing(conn, "game", "status", "VARCHAR(16) NOT NULL DEFAULT 'IN_PROGRESS'");
+            addColumnIfMissing(conn, "game", "moveCount", "INT NOT NULL DEFAULT 0");
+            addColumnIfMissing(conn, "game", "version", "INT NOT NULL DEFAULT 0");
+            addIndexIfMissing(conn, "game", "whiteUsername");
+            addIndexIfMissing(conn, "game", "blackUsername");
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS game_move (
+                    game_id INT NOT NULL,
+                    ply INT NOT NULL,
+                    move SMALLINT NOT NULL,
+                    PRIMARY KEY (game_id, ply),
+                    FOREIGN KEY (game_id) REFERENCES game(id)
+                )
+            """);
         } catch (SQLException e) {
             throw new DataAccessException("Error creating tables", e);
         }
     }
 
+    private static void addColumnIfMissing(Connection conn, String table, String column, String definition) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(databaseName, null, table, column)) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    /**
+     * Adds an index led by {@code column} unless one exists. The foreign keys usually
+     * created one already; the game listing depends on it either way.
+     */
+    private static void addIndexIfMissing(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getIndexInfo(databaseName, null, table, false, false)) {
+            while (rs.next()) {
+                if (rs.getShort("ORDINAL_POSITION") == 1 && column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX idx_" + table + "_" + column + " ON " + table + " (" + column + ")");
+        }
+    }
+
     static Connection getConnection() throws DataAccessException {
-        try {
-            return DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-        } catch (SQLException ex) {
-            throw new DataAccessException("failed to get connection", ex);
+        return pool().getConnection();
+    }
+
+    public static ConnectionPool.Stats poolStats() {
+        return pool().stats();
+    }
+
+    /**
+     * Closes the pool's connections. The next connection asked for opens a new pool.
+     */
+    public static synchronized void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
     }
 
+    /**
+     * Opens the pool on first use rather than when the class loads, so its first
+     * connections go to a database that {@link #initialize} has created.
+     */
+    private static synchronized ConnectionPool pool() {
+        if (pool == null) {
+            pool = new ConnectionPool(() -> DriverManager.getConnection(connectionUrl, dbUsername, dbPassword), poolSettings);
+        }
+        return pool;
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -93,5 +172,23 @@ public class DatabaseManager {
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
         connectionUrl = String.format("jdbc:mysql://%s:%d/%s", host, port, databaseName);
+
+        var defaults = ConnectionPool.Settings.defaults();
+        poolSettings = new ConnectionPool.Settings(
+                intProperty(props, "db.pool.minIdle", defaults.minIdle()),
+                intProperty(props, "db.pool.maxSize", defaults.maxSize()),
+                longProperty(props, "db.pool.idleTimeoutMs", defaults.idleTimeoutMillis()),
+                longProperty(props, "db.pool.acquireTimeoutMs", defaults.acquireTimeoutMillis()),
+                longProperty(props, "db.pool.validationIntervalMs", defaults.validationIntervalMillis()),
+                intProperty(props, "db.pool.validationTimeoutSec", defaults.validationTimeoutSeconds()));
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        return (int) longProperty(props, key, defaultValue);
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
     }
 }
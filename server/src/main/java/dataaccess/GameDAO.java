@@ -1,7 +1,7 @@
 package dataaccess;
 
+import chess.ChessJson;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import model.GameData;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -14,7 +14,7 @@ import java.util.Optional;
 public class GameDAO {
     private final Gson gson;
     public GameDAO() {
-        gson = new GsonBuilder().create();
+        gson = ChessJson.gson();
     }
 
     public GameData createGame(GameData game) throws DataAccessException {
@@ -0,0 +1,33 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameSummary;
+
+/**
+ * One page of a game listing: up to {@code limit} games with ids above {@code afterId},
+ * in id order. {@code player}, {@code openSeat} and {@code status} narrow the listing
+ * when set.
+ */
+public record GameQuery(int afterId, int limit, String player, boolean openSeat, ChessGame.GameStatus status) {
+
+    public static GameQuery firstPage(int limit) {
+        return new GameQuery(0, limit, null, false, null);
+    }
+
+    public GameQuery withLimit(int newLimit) {
+        return new GameQuery(afterId, newLimit, player, openSeat, status);
+    }
+
+    boolean matches(GameSummary g) {
+        if (g.gameID() <= afterId) {
+            return false;
+        }
+        if (player != null && !player.equals(g.whiteUsername()) && !player.equals(g.blackUsername())) {
+            return false;
+        }
+        if (openSeat && g.whiteUsername() != null && g.blackUsername() != null) {
+            return false;
+        }
+        return status == null || status == g.status();
+    }
+}
@@ -3,22 +3,35 @@ package dataaccess;
 import model.UserData;
 import model.GameData;
 import model.AuthData;
+import model.GameSummary;
+import chess.ChessGame;
+import chess.ChessMove;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class InMemoryDataAccess implements DataAccess {
     private final Map<String, UserData> users = new ConcurrentHashMap<>();
     private final Map<Integer, GameData> games = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, GameSummary> summaries = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableSet<Integer>> gamesByPlayer = new ConcurrentHashMap<>();
+    private final NavigableSet<Integer> openGames = new ConcurrentSkipListSet<>();
     private final Map<String, AuthData> auths = new ConcurrentHashMap<>();
+    private final Map<Integer, List<ChessMove>> moves = new ConcurrentHashMap<>();
     private final AtomicInteger nextGameId = new AtomicInteger(1);
 
     @Override
     public void clear() {
         users.clear();
         games.clear();
+        summaries.clear();
+        gamesByPlayer.clear();
+        openGames.clear();
         auths.clear();
+        moves.clear();
         nextGameId.set(1);
     }
 
@@ -40,8 +53,8 @@ public class InMemoryDataAccess implements DataAccess {
     @Override
     public GameData createGame(GameData g) {
         int id = nextGameId.getAndIncrement();
-        GameData created = new GameData(id, g.whiteUsername(), g.blackUsername(), g.gameName(), g.game());
-        games.put(id, created);
+        GameData created = new GameData(id, g.whiteUsername(), g.blackUsername(), g.gameName(), g.game(), 0);
+        games.compute(id, (key, none) -> index(none, created));
         return created;
     }
 
@@ -51,19 +64,157 @@ public class InMemoryDataAccess implements DataAccess {
     }
 
     @Override
-    public List<GameData> listGames() {
-        return new ArrayList<>(games.values());
+    public List<GameData> listGames(GameQuery query) {
+        List<GameData> page = new ArrayList<>();
+        for (GameSummary s : listGameSummaries(query)) {
+            GameData g = games.get(s.gameID());
+            if (g != null) {
+                page.add(g);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) {
+        List<GameSummary> page = new ArrayList<>();
+        for (int id : candidates(query)) {
+            if (page.size() == query.limit()) {
+                break;
+            }
+            GameSummary s = summaries.get(id);
+            if (s != null && query.matches(s)) {
+                page.add(s);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * @return the ids after the query's cursor, in order, from the narrowest index that
+     * covers the query
+     */
+    private NavigableSet<Integer> candidates(GameQuery query) {
+        if (query.player() != null) {
+            NavigableSet<Integer> played = gamesByPlayer.get(query.player());
+            return played == null ? Collections.emptyNavigableSet() : played.tailSet(query.afterId(), false);
+        }
+        if (query.openSeat()) {
+            return openGames.tailSet(query.afterId(), false);
+        }
+        return summaries.navigableKeySet().tailSet(query.afterId(), false);
     }
 
     @Override
-    public void updateGame(GameData g) throws DataAccessException {
+    public boolean updateGame(GameData g) throws DataAccessException {
         if (g == null) {
             throw new DataAccessException("bad game");
         }
-        if (!games.containsKey(g.gameID())) {
-            throw new DataAccessException("game not found");
+        boolean[] updated = new boolean[1];
+        games.computeIfPresent(g.gameID(), (id, current) -> {
+            if (current.version() != g.version()) {
+                return current;
+            }
+            updated[0] = true;
+            List<ChessMove> played = moves.get(id);
+            int ply = g.game() == null ? 0 : g.game().getPly();
+            if (played != null) {
+                synchronized (played) {
+                    if (played.size() > ply) {
+                        played.subList(ply, played.size()).clear();
+                    }
+                }
+            }
+            return index(current, new GameData(id, g.whiteUsername(), g.blackUsername(), g.gameName(), g.game(), g.version() + 1));
+        });
+        return updated[0];
+    }
+
+    @Override
+    public void claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        boolean[] taken = new boolean[1];
+        GameData result = games.computeIfPresent(gameID, (id, current) -> {
+            if ((white ? current.whiteUsername() : current.blackUsername()) != null) {
+                taken[0] = true;
+                return current;
+            }
+            return index(current, new GameData(id, white ? username : current.whiteUsername(),
+                    white ? current.blackUsername() : username, current.gameName(), current.game(), current.version() + 1));
+        });
+        if (result == null) {
+            throw new DataAccessException("bad request");
+        }
+        if (taken[0]) {
+            throw new DataAccessException("already taken");
+        }
+    }
+
+    /**
+     * Brings the summary and listing indexes up to date for a game replacing
+     * {@code old}, and returns it. Only called while {@code games} holds the game's
+     * entry locked, so writes to one game apply in order while other games and all
+     * readers carry on. The summary is worked out here so listing never reads a board
+     * another thread may be using.
+     */
+    private GameData index(GameData old, GameData g) {
+        int id = g.gameID();
+        summaries.put(id, GameSummary.of(g));
+        indexPlayer(g.whiteUsername(), id);
+        indexPlayer(g.blackUsername(), id);
+        if (old != null) {
+            unindexPlayer(old.whiteUsername(), g);
+            unindexPlayer(old.blackUsername(), g);
+        }
+        if (g.whiteUsername() == null || g.blackUsername() == null) {
+            openGames.add(id);
+        } else {
+            openGames.remove(id);
+        }
+        return g;
+    }
+
+    private void indexPlayer(String username, int id) {
+        if (username != null) {
+            gamesByPlayer.computeIfAbsent(username, u -> new ConcurrentSkipListSet<>()).add(id);
+        }
+    }
+
+    private void unindexPlayer(String username, GameData now) {
+        if (username == null || username.equals(now.whiteUsername()) || username.equals(now.blackUsername())) {
+            return;
+        }
+        NavigableSet<Integer> played = gamesByPlayer.get(username);
+        if (played != null) {
+            played.remove(now.gameID());
+        }
+    }
+
+    @Override
+    public boolean appendMoves(int gameID, List<ChessMove> played, ChessGame after) {
+        boolean[] appended = new boolean[1];
+        games.computeIfPresent(gameID, (id, current) -> {
+            int ply = current.game() == null ? 0 : current.game().getPly();
+            if (after.getPly() != ply + played.size()) {
+                return current;
+            }
+            appended[0] = true;
+            moves.computeIfAbsent(id, key -> Collections.synchronizedList(new ArrayList<>())).addAll(played);
+            return index(current, new GameData(id, current.whiteUsername(), current.blackUsername(), current.gameName(),
+                    after, current.version() + played.size()));
+        });
+        return appended[0];
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) {
+        List<ChessMove> played = moves.get(gameID);
+        if (played == null) {
+            return List.of();
+        }
+        synchronized (played) {
+            return new ArrayList<>(played);
         }
-        games.put(g.gameID(), g);
     }
 
     @Override
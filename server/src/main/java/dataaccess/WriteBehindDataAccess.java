@@ -0,0 +1,537 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link DataAccess} that keeps games being played in memory and writes their moves
+ * to the wrapped instance later, so a move does not wait on the database.
+ * <p>
+ * Moves made within {@code window} of a game's first unwritten move are written
+ * together in one {@link DataAccess#appendMoves} call, a transaction of its own per
+ * game: one batch of move rows and one update of the game row. A game is written
+ * at once when it ends, when {@link #close} is called, and before anything that reads
+ * or replaces its stored moves. Seats are claimed straight through, since another
+ * player is waiting on the answer. Games nobody has touched for a while are dropped.
+ * <p>
+ * Moves not yet written are lost if the process dies, and another instance sharing the
+ * database sees them only once they are written.
+ */
+public class WriteBehindDataAccess implements DataAccess, AutoCloseable {
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int MAX_PENDING = 64;
+    private static final int MAX_QUEUED = 1_024;
+
+    /**
+     * {@code lastFailure} describes the most recent failed write, or is null if none
+     * has failed.
+     */
+    public record Stats(long flushes, long movesFlushed, long flushFailures, long movesDropped, int hotGames,
+                        String lastFailure) {
+        public double movesPerFlush() {
+            return flushes == 0 ? 0 : (double) movesFlushed / flushes;
+        }
+    }
+
+    private final DataAccess delegate;
+    private final long windowNanos;
+    private final Map<Integer, Hot> hotGames = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder movesFlushed = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder movesDropped = new LongAdder();
+    private volatile String lastFailure;
+
+    /**
+     * A game held in memory. {@code lock} guards the fields; {@code flushing} keeps a
+     * game's writes one at a time and in order, and is always taken first.
+     */
+    private static final class Hot {
+        final ReentrantLock flushing = new ReentrantLock();
+        final ReentrantLock lock = new ReentrantLock();
+        final List<ChessMove> pending = new ArrayList<>();
+        volatile GameData data;
+        volatile GameSummary summary;
+        long dirtySince;
+        volatile long lastUsed = System.nanoTime();
+        boolean evicted;
+
+        Hot(GameData data) {
+            this.data = data;
+            this.summary = GameSummary.of(data);
+        }
+    }
+
+    public WriteBehindDataAccess(DataAccess delegate) {
+        this(delegate, Duration.ofMillis(200));
+    }
+
+    public WriteBehindDataAccess(DataAccess delegate, Duration window) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Flush window must be positive");
+        }
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "game-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(window.toMillis(), 1);
+        flusher.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<GameData> getGame(int gameID) throws DataAccessException {
+        if (closed) {
+            flushGame(gameID);
+            return delegate.getGame(gameID);
+        }
+        Hot h = hot(gameID);
+        if (h == null) {
+            return Optional.empty();
+        }
+        h.lastUsed = System.nanoTime();
+        return Optional.of(h.data);
+    }
+
+    @Override
+    public boolean appendMoves(int gameID, List<ChessMove> moves, ChessGame after) throws DataAccessException {
+        if (closed) {
+            flushGame(gameID);
+            return delegate.appendMoves(gameID, moves, after);
+        }
+        while (true) {
+            Hot h = hot(gameID);
+            if (h == null) {
+                return false;
+            }
+            boolean flushNow;
+            GameSummary summary;
+            h.lock.lock();
+            try {
+                if (h.evicted) {
+                    continue;
+                }
+                GameData d = h.data;
+                if (d.game() == null || after.getPly() != d.game().getPly() + moves.size()) {
+                    return false;
+                }
+                // Writes keep failing; turn moves away rather than queue them without bound.
+                if (h.pending.size() + moves.size() > MAX_QUEUED) {
+                    throw new DataAccessException("server busy");
+                }
+                long now = System.nanoTime();
+                if (h.pending.isEmpty()) {
+                    h.dirtySince = now;
+                }
+                h.pending.addAll(moves);
+                h.data = new GameData(gameID, d.whiteUsername(), d.blackUsername(), d.gameName(), after,
+                        d.version() + moves.size());
+                summary = GameSummary.of(h.data);
+                h.summary = summary;
+                h.lastUsed = now;
+                flushNow = h.pending.size() >= MAX_PENDING;
+            } finally {
+                h.lock.unlock();
+            }
+            ChessGame.GameStatus status = summary.status();
+            if (flushNow || status == ChessGame.GameStatus.CHECKMATE || status == ChessGame.GameStatus.STALEMATE) {
+                try {
+                    flush(h);
+                } catch (DataAccessException | RuntimeException e) {
+                    // Counted in stats. The move is made either way: if the write failed it
+                    // stays queued for the flusher, unless the stored game moved on, in
+                    // which case it was dropped and the caller has to try again.
+                    h.lock.lock();
+                    try {
+                        return !h.evicted;
+                    } finally {
+                        h.lock.unlock();
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        Hot h = closed ? null : hotGames.get(gameID);
+        if (h == null) {
+            delegate.claimSeat(gameID, color, username);
+            return;
+        }
+        h.flushing.lock();
+        h.lock.lock();
+        try {
+            if (h.evicted) {
+                delegate.claimSeat(gameID, color, username);
+                return;
+            }
+            GameData d = h.data;
+            boolean white = color == ChessGame.TeamColor.WHITE;
+            if ((white ? d.whiteUsername() : d.blackUsername()) != null) {
+                throw new DataAccessException("already taken");
+            }
+            try {
+                delegate.claimSeat(gameID, color, username);
+            } catch (DataAccessException e) {
+                // The stored seats no longer match ours; once nothing is waiting to be
+                // written, read the game again next time.
+                if (h.pending.isEmpty()) {
+                    evict(gameID, h);
+                }
+                throw e;
+            }
+            h.data = new GameData(gameID, white ? username : d.whiteUsername(), white ? d.blackUsername() : username,
+                    d.gameName(), d.game(), d.version() + 1);
+            h.summary = GameSummary.of(h.data);
+            h.lastUsed = System.nanoTime();
+        } finally {
+            h.lock.unlock();
+            h.flushing.unlock();
+        }
+    }
+
+    /**
+     * Writes the game's waiting moves, then replaces it in the wrapped instance and
+     * drops it from memory; the next read loads what was stored.
+     */
+    @Override
+    public boolean updateGame(GameData g) throws DataAccessException {
+        Hot h = closed ? null : hotGames.get(g.gameID());
+        if (h == null) {
+            return delegate.updateGame(g);
+        }
+        h.flushing.lock();
+        h.lock.lock();
+        try {
+            if (h.evicted) {
+                return delegate.updateGame(g);
+            }
+            if (g.version() != h.data.version()) {
+                return false;
+            }
+            write(g.gameID(), h);
+            try {
+                return delegate.updateGame(g);
+            } finally {
+                evict(g.gameID(), h);
+            }
+        } finally {
+            h.lock.unlock();
+            h.flushing.unlock();
+        }
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws DataAccessException {
+        flushGame(gameID);
+        return delegate.getMoves(gameID);
+    }
+
+    @Override
+    public List<GameData> listGames(GameQuery query) throws DataAccessException {
+        flushIfFilteringByStatus(query);
+        List<GameData> page = new ArrayList<>();
+        for (GameData g : delegate.listGames(query)) {
+            Hot h = hotGames.get(g.gameID());
+            page.add(h == null ? g : h.data);
+        }
+        return page;
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(GameQuery query) throws DataAccessException {
+        flushIfFilteringByStatus(query);
+        List<GameSummary> page = new ArrayList<>();
+        for (GameSummary s : delegate.listGameSummaries(query)) {
+            Hot h = hotGames.get(s.gameID());
+            page.add(h == null ? s : h.summary);
+        }
+        return page;
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        for (Map.Entry<Integer, Hot> e : hotGames.entrySet()) {
+            Hot h = e.getValue();
+            h.flushing.lock();
+            h.lock.lock();
+            try {
+                h.pending.clear();
+                evict(e.getKey(), h);
+            } finally {
+                h.lock.unlock();
+                h.flushing.unlock();
+            }
+        }
+        delegate.clear();
+    }
+
+    /**
+     * Writes every game's waiting moves now.
+     */
+    public void flushAll() throws DataAccessException {
+        DataAccessException failure = null;
+        for (Hot h : hotGames.values()) {
+            try {
+                flush(h);
+            } catch (DataAccessException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops the background flusher and writes everything still waiting. Calls made
+     * afterwards go straight to the wrapped instance. A game that cannot be written is
+     * counted in {@link #stats}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+            flushAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            // Already counted by the failed flush.
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(flushes.sum(), movesFlushed.sum(), flushFailures.sum(), movesDropped.sum(), hotGames.size(),
+                lastFailure);
+    }
+
+    @Override
+    public void createUser(UserData u) throws DataAccessException {
+        delegate.createUser(u);
+    }
+
+    @Override
+    public Optional<UserData> getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public GameData createGame(GameData g) throws DataAccessException {
+        return delegate.createGame(g);
+    }
+
+    @Override
+    public void createAuth(AuthData a) throws DataAccessException {
+        delegate.createAuth(a);
+    }
+
+    @Override
+    public Optional<AuthData> getAuth(String token) throws DataAccessException {
+        return delegate.getAuth(token);
+    }
+
+    @Override
+    public void deleteAuth(String token) throws DataAccessException {
+        delegate.deleteAuth(token);
+    }
+
+    /**
+     * @return the game held in memory, loading it if needed, or null if there is no
+     * such game
+     */
+    private Hot hot(int gameID) throws DataAccessException {
+        Hot h = hotGames.get(gameID);
+        if (h != null) {
+            return h;
+        }
+        Optional<GameData> stored = delegate.getGame(gameID);
+        if (stored.isEmpty()) {
+            return null;
+        }
+        Hot loaded = new Hot(stored.get());
+        h = hotGames.putIfAbsent(gameID, loaded);
+        return h == null ? loaded : h;
+    }
+
+    private void flushGame(int gameID) throws DataAccessException {
+        Hot h = hotGames.get(gameID);
+        if (h != null) {
+            flush(h);
+        }
+    }
+
+    /**
+     * Writes the moves waiting on {@code h}. Moves made meanwhile wait for the next
+     * flush.
+     */
+    private void flush(Hot h) throws DataAccessException {
+        h.flushing.lock();
+        try {
+            int gameID;
+            List<ChessMove> moves;
+            ChessGame after;
+            h.lock.lock();
+            try {
+                if (h.pending.isEmpty()) {
+                    return;
+                }
+                gameID = h.data.gameID();
+                moves = new ArrayList<>(h.pending);
+                after = h.data.game();
+                h.pending.clear();
+            } finally {
+                h.lock.unlock();
+            }
+            boolean written;
+            try {
+                written = delegate.appendMoves(gameID, moves, after);
+            } catch (DataAccessException | RuntimeException e) {
+                failed("Failed to write game " + gameID + ": " + e.getMessage());
+                h.lock.lock();
+                try {
+                    // Put them back ahead of anything made since, to try again next time.
+                    h.pending.addAll(0, moves);
+                } finally {
+                    h.lock.unlock();
+                }
+                throw e;
+            }
+            if (!written) {
+                int dropped;
+                h.lock.lock();
+                try {
+                    dropped = moves.size() + h.pending.size();
+                    h.pending.clear();
+                    evict(gameID, h);
+                } finally {
+                    h.lock.unlock();
+                }
+                throw movedOn(gameID, dropped);
+            }
+            flushes.increment();
+            movesFlushed.add(moves.size());
+        } finally {
+            h.flushing.unlock();
+        }
+    }
+
+    /**
+     * Writes the moves waiting on {@code h} while the caller holds both its locks.
+     */
+    private void write(int gameID, Hot h) throws DataAccessException {
+        if (h.pending.isEmpty()) {
+            return;
+        }
+        List<ChessMove> moves = new ArrayList<>(h.pending);
+        boolean written;
+        try {
+            written = delegate.appendMoves(gameID, moves, h.data.game());
+        } catch (DataAccessException | RuntimeException e) {
+            failed("Failed to write game " + gameID + ": " + e.getMessage());
+            throw e;
+        }
+        if (!written) {
+            h.pending.clear();
+            evict(gameID, h);
+            throw movedOn(gameID, moves.size());
+        }
+        flushes.increment();
+        movesFlushed.add(moves.size());
+        h.pending.clear();
+    }
+
+    private void failed(String message) {
+        flushFailures.increment();
+        lastFailure = message;
+    }
+
+    /**
+     * Counts moves that were dropped because the stored game no longer follows on from
+     * them.
+     */
+    private DataAccessException movedOn(int gameID, int dropped) {
+        movesDropped.add(dropped);
+        String message = "Dropped " + dropped + " moves for game " + gameID + ": the stored game has moved on";
+        failed(message);
+        return new DataAccessException(message);
+    }
+
+    /** Drops {@code h}; the caller holds its lock. */
+    private void evict(int gameID, Hot h) {
+        h.evicted = true;
+        hotGames.remove(gameID, h);
+    }
+
+    /**
+     * A status filter is matched against stored games, so their waiting moves have to
+     * be written first.
+     */
+    private void flushIfFilteringByStatus(GameQuery query) throws DataAccessException {
+        if (query.status() != null) {
+            flushAll();
+        }
+    }
+
+    /**
+     * Flushes games whose oldest waiting move is a window old, and drops games idle
+     * for long enough.
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        for (Map.Entry<Integer, Hot> e : hotGames.entrySet()) {
+            Hot h = e.getValue();
+            boolean due;
+            h.lock.lock();
+            try {
+                due = !h.pending.isEmpty() && now - h.dirtySince >= windowNanos;
+            } finally {
+                h.lock.unlock();
+            }
+            try {
+                if (due) {
+                    flush(h);
+                } else if (now - h.lastUsed >= IDLE_NANOS && h.flushing.tryLock()) {
+                    try {
+                        h.lock.lock();
+                        try {
+                            if (h.pending.isEmpty()) {
+                                evict(e.getKey(), h);
+                            }
+                        } finally {
+                            h.lock.unlock();
+                        }
+                    } finally {
+                        h.flushing.unlock();
+                    }
+                }
+            } catch (DataAccessException | RuntimeException ex) {
+                // Counted by the failed flush; the moves stay queued for the next sweep.
+            }
+        }
+    }
+}
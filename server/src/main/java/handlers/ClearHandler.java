@@ -1,5 +1,6 @@
 package handlers;
 
+import chess.ChessJson;
 import com.google.gson.Gson;
 import io.javalin.http.Context;
 import service.ClearService;
@@ -7,7 +8,7 @@ import java.util.Map;
 
 public class ClearHandler {
     private final ClearService clearService;
-    private static final Gson GSON = new Gson();
+    private static final Gson GSON = ChessJson.gson();
 
     public ClearHandler(ClearService clearService) {
         this.clearService = clearService;
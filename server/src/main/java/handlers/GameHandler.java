@@ -1,19 +1,22 @@
 package handlers;
 
+import chess.ChessGame;
+import chess.ChessJson;
 import com.google.gson.Gson;
+import dataaccess.DataAccessException;
+import dataaccess.GameQuery;
 import io.javalin.http.Context;
 import service.GameService;
 import service.requests.CreateGameRequest;
 import service.requests.JoinGameRequest;
+import service.requests.MakeMoveRequest;
 import service.results.CreateGameResult;
-import model.GameData;
 
-import java.util.List;
 import java.util.Map;
 
 public class GameHandler {
     private final GameService gameService;
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
 
     public GameHandler(GameService gameService) {
         this.gameService = gameService;
@@ -26,13 +29,38 @@ public class GameHandler {
                 ctx.status(401).result(gson.toJson(Map.of("message", "Error: unauthorized")));
                 return;
             }
-            List<GameData> games = gameService.listGames(token);
-            ctx.status(200).result(gson.toJson(Map.of("games", games)));
+            GameQuery query = listQuery(ctx);
+            if ("summary".equals(ctx.queryParam("view"))) {
+                ctx.status(200).result(gson.toJson(gameService.listGameSummaries(token, query)));
+                return;
+            }
+            ctx.status(200).result(gson.toJson(gameService.listGames(token, query)));
         } catch (Exception e) {
             HandlerUtils.handleException(ctx, e);
         }
     }
 
+    /**
+     * Reads the listing parameters: {@code after} (the previous page's
+     * {@code nextCursor}), {@code limit}, {@code player}, {@code open=true} and
+     * {@code status}.
+     */
+    private static GameQuery listQuery(Context ctx) throws DataAccessException {
+        try {
+            String after = ctx.queryParam("after");
+            String limit = ctx.queryParam("limit");
+            String status = ctx.queryParam("status");
+            return new GameQuery(
+                    after == null ? 0 : Integer.parseInt(after),
+                    limit == null ? GameService.MAX_PAGE_SIZE : Integer.parseInt(limit),
+                    ctx.queryParam("player"),
+                    "true".equals(ctx.queryParam("open")),
+                    status == null ? null : ChessGame.GameStatus.valueOf(status.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new DataAccessException("bad request");
+        }
+    }
+
     public void createGame(Context ctx) {
         try {
             String token = HandlerUtils.getAuthToken(ctx);
@@ -70,4 +98,23 @@ public class GameHandler {
             HandlerUtils.handleException(ctx, e);
         }
     }
+
+    public void makeMove(Context ctx) {
+        try {
+            String token = HandlerUtils.getAuthToken(ctx);
+            if (token == null || token.isEmpty()) {
+                ctx.status(401).result(gson.toJson(Map.of("message", "Error: unauthorized")));
+                return;
+            }
+            MakeMoveRequest req = gson.fromJson(ctx.body(), MakeMoveRequest.class);
+            if (req == null || req.gameID() == 0 || req.move() == null) {
+                ctx.status(400).result(gson.toJson(Map.of("message", "Error: bad request")));
+                return;
+            }
+            ChessGame game = gameService.makeMove(token, req);
+            ctx.status(200).result(gson.toJson(game));
+        } catch (Exception e) {
+            HandlerUtils.handleException(ctx, e);
+        }
+    }
 }
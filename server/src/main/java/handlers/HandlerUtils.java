@@ -1,11 +1,12 @@
 package handlers;
 
+import chess.ChessJson;
 import com.google.gson.Gson;
 import io.javalin.http.Context;
 import java.util.Map;
 
 public class HandlerUtils {
-    private static final Gson GSON = new Gson();
+    private static final Gson GSON = ChessJson.gson();
 
     public static String getAuthToken(Context ctx) {
         return ctx.header("authorization");
@@ -28,6 +29,10 @@ public class HandlerUtils {
         } else if (msg.contains("taken")) {
             status = 403;
             message = "Error: already taken";
+        } else if (msg.contains("busy")) {
+            status = 503;
+            message = "Error: server busy";
+            ctx.header("Retry-After", "1");
         }
         try {
             ctx.status(status).result(GSON.toJson(Map.of("message", message)));
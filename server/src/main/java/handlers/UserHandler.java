@@ -1,5 +1,6 @@
 package handlers;
 
+import chess.ChessJson;
 import com.google.gson.Gson;
 import io.javalin.http.Context;
 import service.UserService;
@@ -10,7 +11,7 @@ import java.util.Map;
 
 public class UserHandler {
     private final UserService userService;
-    private final Gson gson = new Gson();
+    private final Gson gson = ChessJson.gson();
 
     public UserHandler(UserService userService) {
         this.userService = userService;
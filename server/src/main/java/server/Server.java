@@ -9,30 +9,115 @@ import handlers.ClearHandler;
 import service.GameService;
 import service.UserService;
 import service.ClearService;
+import service.PasswordHasher;
+import service.SignedTokenAuthenticator;
+import service.StoredTokenAuthenticator;
+import service.TokenAuthenticator;
+import chess.ChessJson;
 import com.google.gson.Gson;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+
 public class Server {
 
     private Javalin javalin;
     private final DataAccess dao;
+    private final boolean ownsDataAccess;
+    private final PasswordHasher hasher;
     private final UserService userService;
     private final GameService gameService;
     private final ClearService clearService;
-    private final Gson gson = new Gson();
+    private final boolean virtualThreads;
+    private final Gson gson = ChessJson.gson();
 
     public Server() {
-        DataAccess tempDao;
+        this(openDataAccess(), virtualThreadsFromEnv(), true);
+    }
+
+    /**
+     * Handlers run on virtual threads when {@code CHESS_VIRTUAL_THREADS} is
+     * {@code true}.
+     */
+    public Server(DataAccess dao) {
+        this(dao, virtualThreadsFromEnv());
+    }
+
+    /**
+     * @param virtualThreads run each request on its own virtual thread instead of
+     *                       Jetty's bounded platform thread pool, so requests blocked on
+     *                       the database or on password hashing do not use up the pool.
+     *                       Database concurrency stays capped by the connection pool.
+     */
+    public Server(DataAccess dao, boolean virtualThreads) {
+        this(dao, virtualThreads, false);
+    }
+
+    /**
+     * @param ownsDataAccess whether {@link #stop} should close {@code dao} and the
+     *                       database connections behind it
+     */
+    private Server(DataAccess dao, boolean virtualThreads, boolean ownsDataAccess) {
+        this.dao = dao;
+        this.ownsDataAccess = ownsDataAccess;
+        this.virtualThreads = virtualThreads;
+        this.hasher = new PasswordHasher(hasherSettings());
+        TokenAuthenticator tokens = tokenAuthenticator(dao);
+        this.userService = new UserService(dao, tokens, hasher);
+        this.gameService = new GameService(dao, tokens);
+        this.clearService = new ClearService(dao, tokens);
+    }
+
+    private static boolean virtualThreadsFromEnv() {
+        return Boolean.parseBoolean(System.getenv("CHESS_VIRTUAL_THREADS"));
+    }
+
+    private static DataAccess openDataAccess() {
         try {
             DatabaseManager.initialize();
-            tempDao = new DatabaseDataAccess();
+            return new WriteBehindDataAccess(new CachingDataAccess(new DatabaseDataAccess()), flushWindow());
         } catch (DataAccessException e) {
             System.err.println("Warning: Failed to create database — running in memory mode.");
-            tempDao = new InMemoryDataAccess();
+            return new InMemoryDataAccess();
         }
-        this.dao = tempDao;
-        this.userService = new UserService(dao);
-        this.gameService = new GameService(dao);
-        this.clearService = new ClearService(dao);
+    }
+
+    /**
+     * Writes moves to the database {@code CHESS_FLUSH_WINDOW_MS} milliseconds after a
+     * game's first unwritten move when it is set, otherwise after 200.
+     */
+    private static Duration flushWindow() {
+        String millis = System.getenv("CHESS_FLUSH_WINDOW_MS");
+        if (millis == null || millis.isBlank()) {
+            return Duration.ofMillis(200);
+        }
+        return Duration.ofMillis(Long.parseLong(millis.trim()));
+    }
+
+    /**
+     * Hashes passwords at cost {@code CHESS_BCRYPT_COST} when it is set.
+     */
+    private static PasswordHasher.Settings hasherSettings() {
+        PasswordHasher.Settings defaults = PasswordHasher.Settings.defaults();
+        String cost = System.getenv("CHESS_BCRYPT_COST");
+        if (cost == null || cost.isBlank()) {
+            return defaults;
+        }
+        return new PasswordHasher.Settings(defaults.threads(), defaults.queueCapacity(), Integer.parseInt(cost.trim()));
+    }
+
+    /**
+     * Signs tokens with {@code CHESS_TOKEN_SECRET} when it is set, so requests are
+     * authenticated without a lookup, at the cost of signing everyone out on restart;
+     * otherwise tokens are stored.
+     */
+    private static TokenAuthenticator tokenAuthenticator(DataAccess dao) {
+        String secret = System.getenv("CHESS_TOKEN_SECRET");
+        if (secret == null || secret.isBlank()) {
+            return new StoredTokenAuthenticator(dao);
+        }
+        return new SignedTokenAuthenticator(secret.getBytes(StandardCharsets.UTF_8), Duration.ofHours(24), Clock.systemUTC());
     }
 
     private void registerEndpoints() {
@@ -47,10 +132,12 @@ public class Server {
         javalin.get("/game", gameHandler::listGames);
         javalin.post("/game", gameHandler::createGame);
         javalin.put("/game", gameHandler::joinGame);
+        javalin.put("/game/move", gameHandler::makeMove);
     }
 
     public int run(int desiredPort) {
         javalin = Javalin.create(config -> {
+            config.useVirtualThreads = virtualThreads;
             config.staticFiles.add(staticFileConfig -> {
                 staticFileConfig.directory = "/web";
                 staticFileConfig.hostedPath = "/";
@@ -61,9 +148,21 @@ public class Server {
         return javalin.port();
     }
 
+    /**
+     * Stops serving, then shuts down what the server started, newest first: the
+     * password hasher, then, if the server opened them, the write-behind cache and the
+     * connection pool.
+     */
     public void stop() {
         if (javalin != null) {
             javalin.stop();
         }
+        hasher.close();
+        if (ownsDataAccess) {
+            if (dao instanceof WriteBehindDataAccess writeBehind) {
+                writeBehind.close();
+            }
+            DatabaseManager.close();
+        }
     }
 }
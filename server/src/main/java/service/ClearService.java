@@ -5,12 +5,19 @@ import dataaccess.DataAccessException;
 
 public class ClearService {
     private final DataAccess dao;
+    private final TokenAuthenticator tokens;
 
     public ClearService(DataAccess dao) {
+        this(dao, new StoredTokenAuthenticator(dao));
+    }
+
+    public ClearService(DataAccess dao, TokenAuthenticator tokens) {
         this.dao = dao;
+        this.tokens = tokens;
     }
 
     public void clear() throws DataAccessException {
         dao.clear();
+        tokens.reset();
     }
 }
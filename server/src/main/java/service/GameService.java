@@ -2,33 +2,89 @@ package service;
 
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
+import dataaccess.GameQuery;
 import model.GameData;
+import model.GameSummary;
 import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.InvalidMoveException;
+import model.AuthData;
 import service.requests.CreateGameRequest;
 import service.requests.JoinGameRequest;
+import service.requests.MakeMoveRequest;
 import service.results.CreateGameResult;
+import service.results.ListGameSummariesResult;
+import service.results.ListGamesResult;
 
 import java.util.List;
 import java.util.Optional;
 
 public class GameService {
+    /** The most games one listing request returns, whatever limit it asks for. */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * How many times a move that lost a race with another write to the same game is
+     * retried against the fresh game before giving up.
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
     private final DataAccess dao;
+    private final TokenAuthenticator tokens;
 
     public GameService(DataAccess dao) {
+        this(dao, new StoredTokenAuthenticator(dao));
+    }
+
+    public GameService(DataAccess dao, TokenAuthenticator tokens) {
         this.dao = dao;
+        this.tokens = tokens;
     }
 
-    public List<GameData> listGames(String authToken) throws DataAccessException {
-        if (authToken == null || dao.getAuth(authToken).isEmpty()) {
-            throw new DataAccessException("unauthorized");
+    /**
+     * Lists one page of games. The next page starts after {@code nextCursor}, which is
+     * null on the last page.
+     */
+    public ListGamesResult listGames(String authToken, GameQuery query) throws DataAccessException {
+        GameQuery page = checkListing(authToken, query);
+        List<GameData> games = dao.listGames(page.withLimit(page.limit() + 1));
+        Integer next = null;
+        if (games.size() > page.limit()) {
+            games = games.subList(0, page.limit());
+            next = games.get(page.limit() - 1).gameID();
         }
-        return dao.listGames();
+        return new ListGamesResult(games, next);
     }
 
-    public CreateGameResult createGame(String authToken, CreateGameRequest req) throws DataAccessException {
-        if (authToken == null || dao.getAuth(authToken).isEmpty()) {
-            throw new DataAccessException("unauthorized");
+    public ListGameSummariesResult listGameSummaries(String authToken, GameQuery query) throws DataAccessException {
+        GameQuery page = checkListing(authToken, query);
+        List<GameSummary> games = dao.listGameSummaries(page.withLimit(page.limit() + 1));
+        Integer next = null;
+        if (games.size() > page.limit()) {
+            games = games.subList(0, page.limit());
+            next = games.get(page.limit() - 1).gameID();
+        }
+        return new ListGameSummariesResult(games, next);
+    }
+
+    private AuthData authenticate(String authToken) throws DataAccessException {
+        return tokens.authenticate(authToken).orElseThrow(() -> new DataAccessException("unauthorized"));
+    }
+
+    /**
+     * Checks the caller and the query, and caps the query at {@link #MAX_PAGE_SIZE}.
+     * Callers fetch one game past the page to tell whether another page follows.
+     */
+    private GameQuery checkListing(String authToken, GameQuery query) throws DataAccessException {
+        authenticate(authToken);
+        if (query == null || query.afterId() < 0 || query.limit() < 1) {
+            throw new DataAccessException("bad request");
         }
+        return query.withLimit(Math.min(query.limit(), MAX_PAGE_SIZE));
+    }
+
+    public CreateGameResult createGame(String authToken, CreateGameRequest req) throws DataAccessException {
+        authenticate(authToken);
         if (req == null || req.gameName() == null) {
             throw new DataAccessException("bad request");
         }
@@ -39,33 +95,53 @@ public class GameService {
     }
 
     public void joinGame(String authToken, JoinGameRequest req) throws DataAccessException {
-        if (authToken == null || dao.getAuth(authToken).isEmpty()) {
-            throw new DataAccessException("unauthorized");
-        }
+        AuthData auth = authenticate(authToken);
         if (req == null) {
             throw new DataAccessException("bad request");
         }
-        Optional<GameData> gOpt = dao.getGame(req.gameID());
-        if (gOpt.isEmpty()) {
-            throw new DataAccessException("bad request");
-        }
-        GameData g = gOpt.get();
         String playerColor = req.playerColor();
-        String username = dao.getAuth(authToken).get().username();
+        ChessGame.TeamColor color;
         if ("WHITE".equalsIgnoreCase(playerColor)) {
-            if (g.whiteUsername() != null) {
-                throw new DataAccessException("already taken");
-            }
-            GameData updated = new GameData(g.gameID(), username, g.blackUsername(), g.gameName(), g.game());
-            dao.updateGame(updated);
+            color = ChessGame.TeamColor.WHITE;
         } else if ("BLACK".equalsIgnoreCase(playerColor)) {
-            if (g.blackUsername() != null) {
-                throw new DataAccessException("already taken");
-            }
-            GameData updated = new GameData(g.gameID(), g.whiteUsername(), username, g.gameName(), g.game());
-            dao.updateGame(updated);
+            color = ChessGame.TeamColor.BLACK;
         } else {
             throw new DataAccessException("bad request");
         }
+        dao.claimSeat(req.gameID(), color, auth.username());
+    }
+
+    /**
+     * Plays a move for the player whose turn it is and appends it to the game's move log.
+     *
+     * @return the game after the move
+     */
+    public ChessGame makeMove(String authToken, MakeMoveRequest req) throws DataAccessException {
+        AuthData auth = authenticate(authToken);
+        if (req == null || req.move() == null) {
+            throw new DataAccessException("bad request");
+        }
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Optional<GameData> gOpt = dao.getGame(req.gameID());
+            if (gOpt.isEmpty() || gOpt.get().game() == null) {
+                throw new DataAccessException("bad request");
+            }
+            GameData g = gOpt.get();
+            // Move a copy, so a rejected move never touches a game the data access layer holds.
+            ChessGame game = ChessGameCodec.decode(ChessGameCodec.encode(g.game()));
+            String player = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? g.whiteUsername() : g.blackUsername();
+            if (!auth.username().equals(player)) {
+                throw new DataAccessException("unauthorized");
+            }
+            try {
+                game.makeMove(req.move());
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("bad request");
+            }
+            if (dao.appendMove(g.gameID(), req.move(), game)) {
+                return game;
+            }
+        }
+        throw new DataAccessException("server busy");
     }
 }
@@ -0,0 +1,122 @@
+package service;
+
+import dataaccess.DataAccessException;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt on a small pool of its own, so a burst of logins uses at most
+ * {@code threads} cores and leaves the request threads free for everything else.
+ * <p>
+ * Work beyond {@code queueCapacity} waiting hashes is turned away at once with a
+ * "server busy" error rather than queued without bound.
+ */
+public class PasswordHasher implements AutoCloseable {
+
+    public record Settings(int threads, int queueCapacity, int cost) {
+        public static Settings defaults() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return new Settings(cores, cores * 16, 10);
+        }
+    }
+
+    public record Stats(long completed, long rejected, int queued, long totalQueueNanos, long maxQueueNanos,
+                        long totalHashNanos) {
+        public long averageQueueNanos() {
+            return completed == 0 ? 0 : totalQueueNanos / completed;
+        }
+
+        public long averageHashNanos() {
+            return completed == 0 ? 0 : totalHashNanos / completed;
+        }
+    }
+
+    private final Settings settings;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalHashNanos = new LongAdder();
+
+    public PasswordHasher(Settings settings) {
+        if (settings.threads() < 1 || settings.queueCapacity() < 1) {
+            throw new IllegalArgumentException("Invalid hasher size: " + settings);
+        }
+        this.settings = settings;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(settings.threads(), settings.threads(), 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(settings.queueCapacity()), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public String hash(String password) throws DataAccessException {
+        return run(() -> BCrypt.hashpw(password, BCrypt.gensalt(settings.cost())));
+    }
+
+    public boolean verify(String password, String hash) throws DataAccessException {
+        return run(() -> BCrypt.checkpw(password, hash));
+    }
+
+    public Stats stats() {
+        return new Stats(completed.sum(), rejected.sum(), executor.getQueue().size(), totalQueueNanos.sum(),
+                maxQueueNanos.get(), totalHashNanos.sum());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the task on the pool and waits for it.
+     */
+    <T> T run(Callable<T> task) throws DataAccessException {
+        long submitted = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    long queued = started - submitted;
+                    completed.increment();
+                    totalQueueNanos.add(queued);
+                    maxQueueNanos.accumulate(queued);
+                    totalHashNanos.add(System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new DataAccessException("server busy");
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new DataAccessException("Password hashing failed", e.getCause());
+        }
+    }
+}
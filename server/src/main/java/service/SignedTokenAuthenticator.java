@@ -0,0 +1,167 @@
+package service;
+
+import dataaccess.DataAccessException;
+import model.AuthData;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Self-contained tokens checked without touching storage. A token is
+ * {@code base64url(keyId:issuedAt:expiresAt:nonce:username) "." base64url(HMAC-SHA256)},
+ * with times in epoch seconds. The random nonce keeps two logins in the same second
+ * from sharing a token, so logging out of one leaves the other alone.
+ * <p>
+ * Each key id signs with its own key derived from the secret. A key id is a random
+ * epoch picked when the authenticator is built plus a generation that {@link #reset}
+ * moves on, so both a reset and a restart invalidate every token issued before them.
+ * A restart thereby also covers the logged-out tokens, which are remembered by
+ * signature, in memory only, until they would have expired anyway.
+ */
+public class SignedTokenAuthenticator implements TokenAuthenticator {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int PURGE_EVERY = 256;
+    private static final int IDLE_MACS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final byte[] secret;
+    private final Duration lifetime;
+    private final Clock clock;
+    private final String epoch;
+    private volatile KeyRing keys;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final AtomicInteger revocations = new AtomicInteger();
+
+    /**
+     * The current key id with its key. Request threads may be virtual and short-lived,
+     * so rather than one per thread, a few idle {@link Mac}s are kept for reuse.
+     */
+    private record KeyRing(int generation, String keyId, SecretKeySpec key, BlockingQueue<Mac> idle) {}
+
+    public SignedTokenAuthenticator(byte[] secret, Duration lifetime, Clock clock) {
+        if (secret.length < 16) {
+            throw new IllegalArgumentException("Token secret must be at least 16 bytes");
+        }
+        this.secret = secret.clone();
+        this.lifetime = lifetime;
+        this.clock = clock;
+        this.epoch = Long.toUnsignedString(new SecureRandom().nextLong(), 36);
+        this.keys = keyRing(0);
+    }
+
+    @Override
+    public String issue(String username) throws DataAccessException {
+        if (username == null) {
+            throw new DataAccessException("bad request");
+        }
+        long now = clock.instant().getEpochSecond();
+        KeyRing ring = keys;
+        String payload = ENCODER.encodeToString(
+                (ring.keyId() + ":" + now + ":" + (now + lifetime.toSeconds()) + ":"
+                        + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ":" + username)
+                        .getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(sign(ring, payload));
+    }
+
+    @Override
+    public Optional<AuthData> authenticate(String token) {
+        Claims claims = verify(token);
+        if (claims == null || revoked.containsKey(claims.signature())) {
+            return Optional.empty();
+        }
+        return Optional.of(new AuthData(token, claims.username()));
+    }
+
+    @Override
+    public void revoke(String token) throws DataAccessException {
+        Claims claims = verify(token);
+        if (claims == null || revoked.putIfAbsent(claims.signature(), claims.expiresAt()) != null) {
+            throw new DataAccessException("unauthorized");
+        }
+        if (revocations.incrementAndGet() % PURGE_EVERY == 0) {
+            long now = clock.instant().getEpochSecond();
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        }
+    }
+
+    @Override
+    public synchronized void reset() {
+        keys = keyRing(keys.generation() + 1);
+        revoked.clear();
+    }
+
+    private record Claims(String username, long expiresAt, String signature) {}
+
+    /**
+     * @return the token's claims if it is well formed, signed with the current key and
+     * not expired, otherwise null
+     */
+    private Claims verify(String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        String payload = token.substring(0, dot);
+        try {
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            String[] fields = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":", 5);
+            KeyRing ring = keys;
+            if (fields.length != 5 || !fields[0].equals(ring.keyId())
+                    || !MessageDigest.isEqual(sign(ring, payload), signature)) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(fields[2]);
+            if (expiresAt <= clock.instant().getEpochSecond()) {
+                return null;
+            }
+            // Re-encoded, so spelling the same signature differently cannot dodge a revocation.
+            return new Claims(fields[4], expiresAt, ENCODER.encodeToString(signature));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] sign(KeyRing ring, String payload) {
+        Mac mac = ring.idle().poll();
+        if (mac == null) {
+            mac = newMac(ring.key());
+        }
+        try {
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            ring.idle().offer(mac);
+        }
+    }
+
+    private KeyRing keyRing(int generation) {
+        String keyId = epoch + "-" + generation;
+        Mac derive = newMac(new SecretKeySpec(secret, ALGORITHM));
+        SecretKeySpec key = new SecretKeySpec(derive.doFinal(("key:" + keyId).getBytes(StandardCharsets.US_ASCII)), ALGORITHM);
+        return new KeyRing(generation, keyId, key, new ArrayBlockingQueue<>(IDLE_MACS));
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
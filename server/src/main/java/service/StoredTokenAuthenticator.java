@@ -0,0 +1,43 @@
+package service;
+
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import model.AuthData;
+
+import java.util.Optional;
+
+/**
+ * Random tokens stored through {@link DataAccess}, looked up on every request.
+ */
+public class StoredTokenAuthenticator implements TokenAuthenticator {
+    private final DataAccess dao;
+
+    public StoredTokenAuthenticator(DataAccess dao) {
+        this.dao = dao;
+    }
+
+    @Override
+    public String issue(String username) throws DataAccessException {
+        String token = TokenUtil.generateToken();
+        dao.createAuth(new AuthData(token, username));
+        return token;
+    }
+
+    @Override
+    public Optional<AuthData> authenticate(String token) throws DataAccessException {
+        return token == null ? Optional.empty() : dao.getAuth(token);
+    }
+
+    @Override
+    public void revoke(String token) throws DataAccessException {
+        if (token == null) {
+            throw new DataAccessException("unauthorized");
+        }
+        dao.deleteAuth(token);
+    }
+
+    @Override
+    public void reset() {
+        // Clearing the data access layer already removed the tokens.
+    }
+}
@@ -0,0 +1,28 @@
+package service;
+
+import dataaccess.DataAccessException;
+import model.AuthData;
+
+import java.util.Optional;
+
+/**
+ * Issues auth tokens at login and checks them on every authenticated request.
+ */
+public interface TokenAuthenticator {
+    String issue(String username) throws DataAccessException;
+
+    /**
+     * @return who the token belongs to, or empty if it is unknown, expired or revoked
+     */
+    Optional<AuthData> authenticate(String token) throws DataAccessException;
+
+    /**
+     * Logs the token out. Throws "unauthorized" if it was not valid.
+     */
+    void revoke(String token) throws DataAccessException;
+
+    /**
+     * Invalidates every token, after the data they refer to has been cleared.
+     */
+    void reset();
+}
@@ -2,7 +2,6 @@ package service;
 
 import dataaccess.*;
 import model.*;
-import org.mindrot.jbcrypt.BCrypt;
 import service.requests.LoginRequest;
 import service.requests.RegisterRequest;
 import service.results.LoginResult;
@@ -12,9 +11,21 @@ import java.util.Optional;
 
 public class UserService {
     private final DataAccess dao;
+    private final TokenAuthenticator tokens;
+    private final PasswordHasher hasher;
 
     public UserService(DataAccess dao) {
+        this(dao, new StoredTokenAuthenticator(dao));
+    }
+
+    public UserService(DataAccess dao, TokenAuthenticator tokens) {
+        this(dao, tokens, new PasswordHasher(PasswordHasher.Settings.defaults()));
+    }
+
+    public UserService(DataAccess dao, TokenAuthenticator tokens, PasswordHasher hasher) {
         this.dao = dao;
+        this.tokens = tokens;
+        this.hasher = hasher;
     }
 
     public RegisterResult register(RegisterRequest req) throws DataAccessException {
@@ -24,12 +35,10 @@ public class UserService {
         if (dao.getUser(req.username()).isPresent()) {
             throw new DataAccessException("already taken");
         }
-        String hashedPassword = BCrypt.hashpw(req.password(), BCrypt.gensalt());
+        String hashedPassword = hasher.hash(req.password());
         UserData u = new UserData(req.username(), hashedPassword, req.email());
         dao.createUser(u);
-        String token = TokenUtil.generateToken();
-        AuthData auth = new AuthData(token, req.username());
-        dao.createAuth(auth);
+        String token = tokens.issue(req.username());
         return new RegisterResult(req.username(), token);
     }
 
@@ -42,12 +51,10 @@ public class UserService {
             throw new DataAccessException("unauthorized");
         }
         UserData u = uOpt.get();
-        if (!BCrypt.checkpw(req.password(), u.password())) {
+        if (!hasher.verify(req.password(), u.password())) {
             throw new DataAccessException("unauthorized");
         }
-        String token = TokenUtil.generateToken();
-        AuthData a = new AuthData(token, u.username());
-        dao.createAuth(a);
+        String token = tokens.issue(u.username());
         return new LoginResult(u.username(), token);
     }
 
@@ -55,6 +62,6 @@ public class UserService {
         if (authToken == null) {
             throw new DataAccessException("unauthorized");
         }
-        dao.deleteAuth(authToken);
+        tokens.revoke(authToken);
     }
 }
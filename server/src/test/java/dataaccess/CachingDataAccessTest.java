@@ -0,0 +1,95 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingDataAccessTest {
+
+    /** Counts the lookups that get past the cache. */
+    private static class CountingDataAccess extends InMemoryDataAccess {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public Optional<AuthData> getAuth(String token) {
+            lookups.incrementAndGet();
+            return super.getAuth(token);
+        }
+    }
+
+    private CountingDataAccess backing;
+    private CachingDataAccess cache;
+
+    @BeforeEach
+    public void setup() {
+        backing = new CountingDataAccess();
+        cache = new CachingDataAccess(backing, 64, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void servesRepeatedLookupsFromCache() throws Exception {
+        backing.createAuth(new AuthData("token", "alice"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals("alice", cache.getAuth("token").orElseThrow().username());
+        }
+        assertEquals(1, backing.lookups.get());
+        CachingDataAccess.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    public void createdTokensNeedNoLookup() throws Exception {
+        cache.createAuth(new AuthData("token", "alice"));
+        assertTrue(cache.getAuth("token").isPresent());
+        assertEquals(0, backing.lookups.get());
+    }
+
+    @Test
+    public void remembersUnknownTokens() throws Exception {
+        assertTrue(cache.getAuth("nope").isEmpty());
+        assertTrue(cache.getAuth("nope").isEmpty());
+        assertEquals(1, backing.lookups.get());
+        assertEquals(1, cache.stats().negativeHits());
+    }
+
+    @Test
+    public void deleteAndClearInvalidate() throws Exception {
+        cache.createAuth(new AuthData("a", "alice"));
+        cache.createAuth(new AuthData("b", "bob"));
+        cache.deleteAuth("a");
+        assertTrue(cache.getAuth("a").isEmpty());
+        assertThrows(DataAccessException.class, () -> cache.deleteAuth("a"));
+
+        cache.clear();
+        assertTrue(cache.getAuth("b").isEmpty());
+    }
+
+    @Test
+    public void expiresEntries() throws Exception {
+        cache = new CachingDataAccess(backing, 64, Duration.ofMillis(1), Duration.ofMillis(1));
+        cache.createAuth(new AuthData("token", "alice"));
+        Thread.sleep(5);
+        backing.deleteAuth("token");
+        assertTrue(cache.getAuth("token").isEmpty());
+        assertEquals(1, backing.lookups.get());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            cache.createAuth(new AuthData("token" + i, "user" + i));
+        }
+        CachingDataAccess.Stats stats = cache.stats();
+        assertTrue(stats.size() <= 64);
+        assertEquals(200 - stats.size(), stats.evictions());
+        assertEquals("user0", cache.getAuth("token0").orElseThrow().username());
+    }
+}
@@ -0,0 +1,159 @@
+package dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+
+    /** A stand-in for a physical connection that records what the pool did with it. */
+    private static class FakeConnection {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean valid = new AtomicBoolean(true);
+        boolean autoCommit = true;
+        int rollbacks;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                    (p, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed.set(true);
+                            yield null;
+                        }
+                        case "isClosed" -> closed.get();
+                        case "isValid" -> valid.get();
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rollbacks++;
+                            yield null;
+                        }
+                        case "getCatalog" -> "chess";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    private ConnectionPool pool(int minIdle, int maxSize, long idleTimeoutMillis, long acquireTimeoutMillis, long validationIntervalMillis) {
+        pool = new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            opened.add(fake);
+            return fake.proxy();
+        }, new ConnectionPool.Settings(minIdle, maxSize, idleTimeoutMillis, acquireTimeoutMillis, validationIntervalMillis, 1));
+        return pool;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void reusesReturnedConnections() throws Exception {
+        pool(0, 4, 60_000, 1_000, 60_000);
+        for (int i = 0; i < 5; i++) {
+            try (Connection conn = pool.getConnection()) {
+                assertEquals("chess", conn.getCatalog());
+            }
+        }
+        assertEquals(1, opened.size());
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(1, stats.open());
+        assertEquals(1, stats.idle());
+        assertEquals(5, stats.acquired());
+    }
+
+    @Test
+    public void closedLeaseCannotBeUsed() throws Exception {
+        pool(0, 1, 60_000, 1_000, 60_000);
+        Connection conn = pool.getConnection();
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::getCatalog);
+        assertFalse(opened.get(0).closed.get());
+        assertEquals(1, pool.stats().idle());
+    }
+
+    @Test
+    public void waitsThenTimesOutWhenExhausted() throws Exception {
+        pool(0, 2, 60_000, 50, 60_000);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        assertThrows(DataAccessException.class, pool::getConnection);
+        assertEquals(1, pool.stats().timedOut());
+        assertTrue(pool.stats().maxWaitNanos() >= 40_000_000L);
+
+        first.close();
+        try (Connection third = pool.getConnection()) {
+            assertNotNull(third);
+        }
+        second.close();
+        assertEquals(2, opened.size());
+    }
+
+    @Test
+    public void rollsBackOpenTransactionsOnReturn() throws Exception {
+        pool(0, 1, 60_000, 1_000, 60_000);
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+        }
+        assertEquals(1, opened.get(0).rollbacks);
+        assertTrue(opened.get(0).autoCommit);
+    }
+
+    @Test
+    public void replacesConnectionsThatFailValidation() throws Exception {
+        pool(0, 1, 60_000, 1_000, 0);
+        pool.getConnection().close();
+        opened.get(0).valid.set(false);
+        Thread.sleep(2);
+        pool.getConnection().close();
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed.get());
+        assertEquals(1, pool.stats().open());
+    }
+
+    @Test
+    public void opensMinimumUpFront() throws Exception {
+        pool(2, 4, 60_000, 1_000, 60_000);
+        assertEquals(2, opened.size());
+        assertEquals(2, pool.stats().idle());
+        try (Connection conn = pool.getConnection()) {
+            assertEquals("chess", conn.getCatalog());
+        }
+        assertEquals(2, opened.size());
+    }
+
+    @Test
+    public void evictsIdleConnectionsDownToMinimum() throws Exception {
+        pool(1, 3, 20, 1_000, 60_000);
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+        Connection c = pool.getConnection();
+        a.close();
+        b.close();
+        c.close();
+        Thread.sleep(30);
+        pool.evictIdle();
+        assertEquals(1, pool.stats().idle());
+        assertEquals(1, pool.stats().open());
+        assertEquals(2, opened.stream().filter(f -> f.closed.get()).count());
+    }
+}
@@ -0,0 +1,78 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseDataAccessTest {
+
+    private DatabaseDataAccess dao;
+    private int gameID;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        DatabaseManager.initialize();
+        dao = new DatabaseDataAccess();
+        dao.clear();
+        gameID = dao.createGame(new GameData(0, null, null, "game", new ChessGame())).gameID();
+    }
+
+    @Test
+    public void replacingTheBoardDropsLaterMoves() throws Exception {
+        play(move(2, 5, 4, 5), move(7, 5, 5, 5), move(1, 7, 3, 6));
+        GameData played = dao.getGame(gameID).orElseThrow();
+
+        assertTrue(dao.updateGame(new GameData(gameID, null, null, "game", new ChessGame(), played.version())));
+        GameData reset = dao.getGame(gameID).orElseThrow();
+        assertEquals(new ChessGame(), reset.game());
+        assertEquals(0, reset.game().getPly());
+        assertTrue(dao.getMoves(gameID).isEmpty());
+
+        play(move(2, 4, 4, 4));
+        assertEquals(1, dao.getGame(gameID).orElseThrow().game().getPly());
+        assertEquals(1, dao.getMoves(gameID).size());
+    }
+
+    @Test
+    public void staleUpdatesKeepTheLog() throws Exception {
+        play(move(2, 5, 4, 5));
+        assertFalse(dao.updateGame(new GameData(gameID, null, null, "game", new ChessGame(), 0)));
+        assertEquals(1, dao.getMoves(gameID).size());
+        assertEquals(1, dao.getGame(gameID).orElseThrow().game().getPly());
+    }
+
+    @Test
+    public void appendsCheckThePlyNotTheVersion() throws Exception {
+        ChessGame read = dao.getGame(gameID).orElseThrow().game();
+        dao.createUser(new UserData("alice", "password", "alice@example.com"));
+        dao.claimSeat(gameID, ChessGame.TeamColor.WHITE, "alice");
+        ChessGame first = ChessGameCodec.decode(ChessGameCodec.encode(read));
+        first.makeMove(move(2, 5, 4, 5));
+        assertTrue(dao.appendMove(gameID, move(2, 5, 4, 5), first));
+
+        ChessGame stale = ChessGameCodec.decode(ChessGameCodec.encode(read));
+        stale.makeMove(move(2, 4, 4, 4));
+        assertFalse(dao.appendMove(gameID, move(2, 4, 4, 4), stale));
+        assertEquals(1, dao.getMoves(gameID).size());
+        assertEquals(2, dao.getGame(gameID).orElseThrow().version());
+    }
+
+    private void play(ChessMove... moves) throws Exception {
+        for (ChessMove m : moves) {
+            ChessGame game = ChessGameCodec.decode(ChessGameCodec.encode(dao.getGame(gameID).orElseThrow().game()));
+            game.makeMove(m);
+            assertTrue(dao.appendMove(gameID, m, game));
+        }
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
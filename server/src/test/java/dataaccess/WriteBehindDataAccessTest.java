@@ -0,0 +1,187 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindDataAccessTest {
+
+    /** Counts the batches of moves that reach the backing store, failing them while it is down. */
+    private static class CountingDataAccess extends InMemoryDataAccess {
+        final AtomicInteger batches = new AtomicInteger();
+        volatile boolean down;
+
+        @Override
+        public boolean appendMoves(int gameID, List<ChessMove> moves, ChessGame after) {
+            if (down) {
+                throw new IllegalStateException("store unavailable");
+            }
+            batches.incrementAndGet();
+            return super.appendMoves(gameID, moves, after);
+        }
+    }
+
+    private CountingDataAccess backing;
+    private WriteBehindDataAccess writeBehind;
+    private int gameID;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        backing = new CountingDataAccess();
+        writeBehind = new WriteBehindDataAccess(backing, Duration.ofMinutes(1));
+        gameID = backing.createGame(new GameData(0, null, null, "game", new ChessGame())).gameID();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writeBehind.close();
+    }
+
+    @Test
+    public void coalescesMovesIntoOneBatch() throws Exception {
+        play(writeBehind, move(2, 5, 4, 5), move(7, 5, 5, 5), move(1, 7, 3, 6));
+        assertEquals(0, backing.batches.get());
+        assertEquals(3, writeBehind.getGame(gameID).orElseThrow().game().getPly());
+        assertEquals(0, backing.getGame(gameID).orElseThrow().game().getPly());
+
+        writeBehind.flushAll();
+        assertEquals(1, backing.batches.get());
+        GameData stored = backing.getGame(gameID).orElseThrow();
+        assertEquals(3, stored.game().getPly());
+        assertEquals(3, stored.version());
+        assertEquals(3, backing.getMoves(gameID).size());
+    }
+
+    @Test
+    public void flushesWhenTheGameEnds() throws Exception {
+        play(writeBehind, move(2, 6, 3, 6), move(7, 5, 5, 5), move(2, 7, 4, 7), move(8, 4, 4, 8));
+        assertEquals(1, backing.batches.get());
+        GameData stored = backing.getGame(gameID).orElseThrow();
+        assertEquals(ChessGame.GameStatus.CHECKMATE, stored.game().getStatus());
+        assertEquals(4, backing.getMoves(gameID).size());
+    }
+
+    @Test
+    public void keepsTheGameEndingMoveWhenTheWriteFails() throws Exception {
+        backing.down = true;
+        play(writeBehind, move(2, 6, 3, 6), move(7, 5, 5, 5), move(2, 7, 4, 7), move(8, 4, 4, 8));
+        assertEquals(1, writeBehind.stats().flushFailures());
+        assertEquals(ChessGame.GameStatus.CHECKMATE, writeBehind.getGame(gameID).orElseThrow().game().getStatus());
+        assertEquals(0, backing.getMoves(gameID).size());
+
+        backing.down = false;
+        writeBehind.flushAll();
+        assertEquals(ChessGame.GameStatus.CHECKMATE, backing.getGame(gameID).orElseThrow().game().getStatus());
+        assertEquals(4, backing.getMoves(gameID).size());
+    }
+
+    @Test
+    public void turnsMovesAwayWhileTheStoreIsDown() throws Exception {
+        backing.down = true;
+        ChessMove[] shuffle = {move(1, 7, 3, 6), move(8, 7, 6, 6), move(3, 6, 1, 7), move(6, 6, 8, 7)};
+        for (int i = 0; i < 256; i++) {
+            play(writeBehind, shuffle);
+        }
+        ChessGame next = ChessGameCodec.decode(ChessGameCodec.encode(writeBehind.getGame(gameID).orElseThrow().game()));
+        next.makeMove(shuffle[0]);
+        DataAccessException e = assertThrows(DataAccessException.class,
+                () -> writeBehind.appendMove(gameID, shuffle[0], next));
+        assertEquals("server busy", e.getMessage());
+        assertEquals(1_024, writeBehind.getGame(gameID).orElseThrow().game().getPly());
+
+        backing.down = false;
+        writeBehind.flushAll();
+        assertEquals(1_024, backing.getMoves(gameID).size());
+    }
+
+    @Test
+    public void flushesInTheBackground() throws Exception {
+        writeBehind.close();
+        writeBehind = new WriteBehindDataAccess(backing, Duration.ofMillis(20));
+        play(writeBehind, move(2, 5, 4, 5));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (writeBehind.stats().flushes() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, writeBehind.stats().flushes());
+        assertEquals(1, backing.getMoves(gameID).size());
+    }
+
+    @Test
+    public void rejectsMovesAtAPlyAlreadyPlayed() throws Exception {
+        ChessGame stale = ChessGameCodec.decode(ChessGameCodec.encode(writeBehind.getGame(gameID).orElseThrow().game()));
+        play(writeBehind, move(2, 5, 4, 5));
+        stale.makeMove(move(2, 4, 4, 4));
+        assertFalse(writeBehind.appendMove(gameID, move(2, 4, 4, 4), stale));
+    }
+
+    @Test
+    public void reportsMovesTheStoreNoLongerAccepts() throws Exception {
+        play(writeBehind, move(2, 5, 4, 5));
+        play(backing, move(2, 4, 4, 4));
+        DataAccessException e = assertThrows(DataAccessException.class, writeBehind::flushAll);
+        WriteBehindDataAccess.Stats stats = writeBehind.stats();
+        assertEquals(1, stats.movesDropped());
+        assertEquals(1, stats.flushFailures());
+        assertEquals(e.getMessage(), stats.lastFailure());
+        assertEquals(1, writeBehind.getGame(gameID).orElseThrow().game().getPly());
+        assertEquals(List.of(move(2, 4, 4, 4)), writeBehind.getMoves(gameID));
+    }
+
+    @Test
+    public void seatsAndUpdatesKeepVersionsInStep() throws Exception {
+        play(writeBehind, move(2, 5, 4, 5));
+        writeBehind.claimSeat(gameID, ChessGame.TeamColor.WHITE, "alice");
+        GameData hot = writeBehind.getGame(gameID).orElseThrow();
+        assertEquals("alice", hot.whiteUsername());
+        assertEquals(2, hot.version());
+        assertThrows(DataAccessException.class,
+                () -> writeBehind.claimSeat(gameID, ChessGame.TeamColor.WHITE, "bob"));
+
+        assertFalse(writeBehind.updateGame(new GameData(gameID, "alice", "bob", "renamed", hot.game(), 1)));
+        assertTrue(writeBehind.updateGame(new GameData(gameID, "alice", "bob", "renamed", hot.game(), 2)));
+        GameData stored = backing.getGame(gameID).orElseThrow();
+        assertEquals("renamed", stored.gameName());
+        assertEquals(3, stored.version());
+        assertEquals(stored, writeBehind.getGame(gameID).orElseThrow());
+    }
+
+    @Test
+    public void listingsShowMovesNotYetWritten() throws Exception {
+        play(writeBehind, move(2, 5, 4, 5), move(7, 5, 5, 5));
+        assertEquals(2, writeBehind.listGameSummaries(GameQuery.firstPage(10)).getFirst().moveCount());
+        assertEquals(2, writeBehind.listGames(GameQuery.firstPage(10)).getFirst().game().getPly());
+        assertEquals(0, backing.batches.get());
+    }
+
+    @Test
+    public void closeWritesEverything() throws Exception {
+        play(writeBehind, move(2, 5, 4, 5), move(7, 5, 5, 5));
+        writeBehind.close();
+        assertEquals(2, backing.getMoves(gameID).size());
+        assertEquals(2, backing.getGame(gameID).orElseThrow().version());
+    }
+
+    private void play(DataAccess dao, ChessMove... moves) throws Exception {
+        for (ChessMove m : moves) {
+            ChessGame game = ChessGameCodec.decode(ChessGameCodec.encode(dao.getGame(gameID).orElseThrow().game()));
+            game.makeMove(m);
+            assertTrue(dao.appendMove(gameID, m, game));
+        }
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
@@ -2,14 +2,24 @@ package service;
 
 import dataaccess.InMemoryDataAccess;
 import dataaccess.DataAccessException;
+import dataaccess.GameQuery;
 import model.GameData;
+import model.GameSummary;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
 import service.requests.RegisterRequest;
 import service.requests.CreateGameRequest;
 import service.requests.JoinGameRequest;
+import service.requests.MakeMoveRequest;
 import service.results.CreateGameResult;
+import service.results.ListGameSummariesResult;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,7 +41,7 @@ public class GameServiceTest {
     public void listGamesSuccess() throws Exception {
         CreateGameRequest req = new CreateGameRequest("TestGame");
         gameService.createGame(token, req);
-        List<GameData> games = gameService.listGames(token);
+        List<GameData> games = gameService.listGames(token, GameQuery.firstPage(10)).games();
         assertNotNull(games);
         assertEquals(1, games.size());
         assertEquals("TestGame", games.get(0).gameName());
@@ -39,7 +49,56 @@ public class GameServiceTest {
 
     @Test
     public void listGamesUnauthorized() {
-        assertThrows(DataAccessException.class, () -> gameService.listGames("invalid-token"));
+        assertThrows(DataAccessException.class, () -> gameService.listGames("invalid-token", GameQuery.firstPage(10)));
+    }
+
+    @Test
+    public void listGameSummariesTracksMoves() throws Exception {
+        int gameID = gameService.createGame(token, new CreateGameRequest("Summary")).gameID();
+        gameService.joinGame(token, new JoinGameRequest("WHITE", gameID));
+        gameService.makeMove(token, new MakeMoveRequest(gameID, new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null)));
+
+        List<GameSummary> summaries = gameService.listGameSummaries(token, GameQuery.firstPage(10)).games();
+        assertEquals(List.of(new GameSummary(gameID, "player1", null, "Summary", ChessGame.GameStatus.IN_PROGRESS, 1)), summaries);
+        assertThrows(DataAccessException.class, () -> gameService.listGameSummaries("invalid-token", GameQuery.firstPage(10)));
+    }
+
+    @Test
+    public void listGamesPagesByCursor() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            gameService.createGame(token, new CreateGameRequest("Game" + i));
+        }
+        ListGameSummariesResult first = gameService.listGameSummaries(token, GameQuery.firstPage(2));
+        assertEquals(List.of("Game0", "Game1"), first.games().stream().map(GameSummary::gameName).toList());
+        ListGameSummariesResult second = gameService.listGameSummaries(token, new GameQuery(first.nextCursor(), 2, null, false, null));
+        assertEquals(List.of("Game2", "Game3"), second.games().stream().map(GameSummary::gameName).toList());
+        ListGameSummariesResult last = gameService.listGameSummaries(token, new GameQuery(second.nextCursor(), 2, null, false, null));
+        assertEquals(1, last.games().size());
+        assertNull(last.nextCursor());
+
+        assertEquals(5, gameService.listGames(token, GameQuery.firstPage(1_000)).games().size());
+        assertThrows(DataAccessException.class, () -> gameService.listGames(token, GameQuery.firstPage(0)));
+    }
+
+    @Test
+    public void listGamesFilters() throws Exception {
+        String token2 = new UserService(dao).register(new RegisterRequest("player2", "pw", "p2@example.com")).authToken();
+        int full = gameService.createGame(token, new CreateGameRequest("Full")).gameID();
+        int mine = gameService.createGame(token, new CreateGameRequest("Mine")).gameID();
+        int empty = gameService.createGame(token, new CreateGameRequest("Empty")).gameID();
+        gameService.joinGame(token, new JoinGameRequest("WHITE", full));
+        gameService.joinGame(token2, new JoinGameRequest("BLACK", full));
+        gameService.joinGame(token, new JoinGameRequest("BLACK", mine));
+
+        assertEquals(List.of(full, mine), ids(new GameQuery(0, 10, "player1", false, null)));
+        assertEquals(List.of(full), ids(new GameQuery(0, 10, "player2", false, null)));
+        assertEquals(List.of(mine, empty), ids(new GameQuery(0, 10, null, true, null)));
+        assertEquals(List.of(mine), ids(new GameQuery(0, 10, "player1", true, null)));
+        assertEquals(List.of(), ids(new GameQuery(0, 10, null, false, ChessGame.GameStatus.CHECKMATE)));
+    }
+
+    private List<Integer> ids(GameQuery query) throws DataAccessException {
+        return gameService.listGameSummaries(token, query).games().stream().map(GameSummary::gameID).toList();
     }
 
     @Test
@@ -68,11 +127,13 @@ public class GameServiceTest {
     public void joinGameSuccessWhite() throws Exception {
         CreateGameRequest req = new CreateGameRequest("Match1");
         int gameID = gameService.createGame(token, req).gameID();
+        ChessGame board = dao.getGame(gameID).orElseThrow().game();
         JoinGameRequest joinReq = new JoinGameRequest("WHITE", gameID);
         gameService.joinGame(token, joinReq);
         GameData game = dao.getGame(gameID).orElseThrow();
         assertEquals("player1", game.whiteUsername());
         assertNull(game.blackUsername());
+        assertSame(board, game.game());
     }
 
     @Test
@@ -103,7 +164,9 @@ public class GameServiceTest {
     public void joinGameBadRequest() {
         assertThrows(DataAccessException.class, () -> gameService.joinGame(token, null));
         assertThrows(DataAccessException.class, () -> gameService.joinGame(token, new JoinGameRequest("INVALID_COLOR", 1)));
-        assertThrows(DataAccessException.class, () -> gameService.joinGame(token, new JoinGameRequest("WHITE", 999)));
+        DataAccessException missing = assertThrows(DataAccessException.class,
+                () -> gameService.joinGame(token, new JoinGameRequest("WHITE", 999)));
+        assertEquals("bad request", missing.getMessage());
     }
 
     @Test
@@ -114,4 +177,82 @@ public class GameServiceTest {
         JoinGameRequest joinReq = new JoinGameRequest("WHITE", gameID);
         assertThrows(DataAccessException.class, () -> gameService.joinGame("bad-token", joinReq));
     }
+
+    @Test
+    public void concurrentJoinsClaimSeatOnce() throws Exception {
+        int gameID = gameService.createGame(token, new CreateGameRequest("Race")).gameID();
+        var userService = new UserService(dao);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tokens.add(userService.register(new RegisterRequest("racer" + i, "pw", "r" + i + "@example.com")).authToken());
+        }
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (String racer : tokens) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    gameService.joinGame(racer, new JoinGameRequest("WHITE", gameID));
+                    winners.incrementAndGet();
+                } catch (DataAccessException e) {
+                    if (e.getMessage().equals("already taken")) {
+                        taken.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(1, winners.get());
+        assertEquals(7, taken.get());
+        assertEquals(1, dao.getGame(gameID).orElseThrow().version());
+    }
+
+    @Test
+    public void staleUpdatesAreRejected() throws Exception {
+        int gameID = gameService.createGame(token, new CreateGameRequest("Stale")).gameID();
+        GameData read = dao.getGame(gameID).orElseThrow();
+        assertTrue(dao.updateGame(new GameData(gameID, "player1", null, "Stale", read.game(), read.version())));
+        assertFalse(dao.updateGame(new GameData(gameID, null, "player1", "Stale", read.game(), read.version())));
+        assertEquals("player1", dao.getGame(gameID).orElseThrow().whiteUsername());
+        assertFalse(dao.updateGame(new GameData(999, null, null, "Missing", null, 0)));
+    }
+
+    @Test
+    public void makeMoveSuccess() throws Exception {
+        String token2 = new UserService(dao).register(new RegisterRequest("player2", "pw", "p2@example.com")).authToken();
+        int gameID = gameService.createGame(token, new CreateGameRequest("Match5")).gameID();
+        gameService.joinGame(token, new JoinGameRequest("WHITE", gameID));
+        gameService.joinGame(token2, new JoinGameRequest("BLACK", gameID));
+
+        ChessMove e4 = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        ChessMove e5 = new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null);
+        gameService.makeMove(token, new MakeMoveRequest(gameID, e4));
+        ChessGame after = gameService.makeMove(token2, new MakeMoveRequest(gameID, e5));
+
+        assertEquals(ChessGame.TeamColor.WHITE, after.getTeamTurn());
+        assertEquals(after, dao.getGame(gameID).orElseThrow().game());
+        assertEquals(List.of(e4, e5), dao.getMoves(gameID));
+    }
+
+    @Test
+    public void makeMoveRejected() throws Exception {
+        int gameID = gameService.createGame(token, new CreateGameRequest("Match6")).gameID();
+        gameService.joinGame(token, new JoinGameRequest("BLACK", gameID));
+        ChessMove e4 = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        ChessMove e5 = new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null);
+
+        assertThrows(DataAccessException.class, () -> gameService.makeMove(token, new MakeMoveRequest(gameID, e4)));
+        assertThrows(DataAccessException.class, () -> gameService.makeMove("bad-token", new MakeMoveRequest(gameID, e5)));
+        gameService.joinGame(token, new JoinGameRequest("WHITE", gameID));
+        assertThrows(DataAccessException.class, () -> gameService.makeMove(token, new MakeMoveRequest(gameID, e5)));
+        assertEquals(new ChessGame(), dao.getGame(gameID).orElseThrow().game());
+        assertTrue(dao.getMoves(gameID).isEmpty());
+    }
 }
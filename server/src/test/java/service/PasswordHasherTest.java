@@ -0,0 +1,68 @@
+package service;
+
+import dataaccess.DataAccessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+    private PasswordHasher hasher;
+
+    @AfterEach
+    public void tearDown() {
+        if (hasher != null) {
+            hasher.close();
+        }
+    }
+
+    @Test
+    public void hashesAndVerifies() throws Exception {
+        hasher = new PasswordHasher(new PasswordHasher.Settings(2, 4, 4));
+        String hash = hasher.hash("secret");
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(hasher.verify("secret", hash));
+        assertFalse(hasher.verify("wrong", hash));
+
+        PasswordHasher.Stats stats = hasher.stats();
+        assertEquals(3, stats.completed());
+        assertEquals(0, stats.rejected());
+        assertTrue(stats.totalHashNanos() > 0);
+    }
+
+    @Test
+    public void rejectsWorkBeyondTheQueue() throws Exception {
+        hasher = new PasswordHasher(new PasswordHasher.Settings(1, 1, 4));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> running = callers.submit(() -> hasher.run(() -> {
+                started.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Boolean> queued = callers.submit(() -> hasher.run(() -> true));
+            while (hasher.stats().queued() == 0) {
+                Thread.onSpinWait();
+            }
+
+            DataAccessException busy = assertThrows(DataAccessException.class, () -> hasher.hash("secret"));
+            assertEquals("server busy", busy.getMessage());
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+            assertEquals(1, hasher.stats().rejected());
+            assertTrue(hasher.stats().maxQueueNanos() > 0);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package service;
+
+import dataaccess.DataAccessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SignedTokenAuthenticatorTest {
+    private static final byte[] SECRET = "a test secret of some length".getBytes(StandardCharsets.UTF_8);
+
+    private SignedTokenAuthenticator tokens;
+
+    @BeforeEach
+    public void setup() {
+        tokens = new SignedTokenAuthenticator(SECRET, Duration.ofHours(1), Clock.systemUTC());
+    }
+
+    @Test
+    public void issuedTokensAuthenticate() throws Exception {
+        String token = tokens.issue("alice:smith");
+        assertEquals("alice:smith", tokens.authenticate(token).orElseThrow().username());
+        assertEquals(token, tokens.authenticate(token).orElseThrow().authToken());
+    }
+
+    @Test
+    public void rejectsTamperedAndForeignTokens() throws Exception {
+        String token = tokens.issue("alice");
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertTrue(tokens.authenticate(forged).isEmpty());
+        assertTrue(tokens.authenticate("not-a-token").isEmpty());
+        assertTrue(tokens.authenticate(null).isEmpty());
+
+        var other = new SignedTokenAuthenticator("another secret entirely".getBytes(StandardCharsets.UTF_8),
+                Duration.ofHours(1), Clock.systemUTC());
+        assertTrue(other.authenticate(token).isEmpty());
+    }
+
+    @Test
+    public void expiredTokensAreRejected() throws Exception {
+        Instant start = Instant.now();
+        Instant[] now = {start};
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now[0];
+            }
+        };
+        var expiring = new SignedTokenAuthenticator(SECRET, Duration.ofHours(1), clock);
+        String token = expiring.issue("alice");
+        assertTrue(expiring.authenticate(token).isPresent());
+        now[0] = start.plus(Duration.ofHours(2));
+        assertTrue(expiring.authenticate(token).isEmpty());
+    }
+
+    @Test
+    public void revokedTokensStayRevoked() throws Exception {
+        String token = tokens.issue("alice");
+        String other = tokens.issue("alice");
+        tokens.revoke(token);
+        assertTrue(tokens.authenticate(token).isEmpty());
+        assertTrue(tokens.authenticate(other).isPresent());
+        assertThrows(DataAccessException.class, () -> tokens.revoke(token));
+    }
+
+    @Test
+    public void restartInvalidatesEverything() throws Exception {
+        String token = tokens.issue("alice");
+        tokens.revoke(tokens.issue("alice"));
+        var restarted = new SignedTokenAuthenticator(SECRET, Duration.ofHours(1), Clock.systemUTC());
+        assertTrue(restarted.authenticate(token).isEmpty());
+        assertTrue(restarted.authenticate(restarted.issue("alice")).isPresent());
+    }
+
+    @Test
+    public void signsFromManyThreads() throws Exception {
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String username = "user" + i;
+                results.add(threads.submit(() ->
+                        username.equals(tokens.authenticate(tokens.issue(username)).orElseThrow().username())));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+    }
+
+    @Test
+    public void resetInvalidatesEverything() throws Exception {
+        String token = tokens.issue("alice");
+        tokens.reset();
+        assertTrue(tokens.authenticate(token).isEmpty());
+        assertTrue(tokens.authenticate(tokens.issue("alice")).isPresent());
+    }
+}
@@ -0,0 +1,84 @@
+package chess;
+
+/**
+ * Attack masks precomputed once per square: leaper tables for knights, kings and pawns,
+ * with sliding attacks looked up in the {@link Magics} tables, plus the squares between
+ * and along each pair of squares that share a rank, file or diagonal.
+ */
+final class Attacks {
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            long b = Bitboards.bit(sq);
+            KNIGHT[sq] = Bitboards.knightAttacks(b);
+            KING[sq] = Bitboards.kingAttacks(b);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][sq] = Bitboards.pawnAttacks(b, ChessGame.TeamColor.WHITE);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][sq] = Bitboards.pawnAttacks(b, ChessGame.TeamColor.BLACK);
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = Bitboards.bit(a) | Bitboards.bit(b);
+                if ((Magics.rook(a, 0L) & Bitboards.bit(b)) != 0) {
+                    BETWEEN[a][b] = Magics.rook(a, Bitboards.bit(b)) & Magics.rook(b, Bitboards.bit(a));
+                    LINE[a][b] = (Magics.rook(a, 0L) & Magics.rook(b, 0L)) | ends;
+                } else if ((Magics.bishop(a, 0L) & Bitboards.bit(b)) != 0) {
+                    BETWEEN[a][b] = Magics.bishop(a, Bitboards.bit(b)) & Magics.bishop(b, Bitboards.bit(a));
+                    LINE[a][b] = (Magics.bishop(a, 0L) & Magics.bishop(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    private Attacks() {}
+
+    static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of {@code color} standing on {@code square} attacks
+     */
+    static long pawn(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    static long rook(int square, long occupied) {
+        return Magics.rook(square, occupied);
+    }
+
+    static long bishop(int square, long occupied) {
+        return Magics.bishop(square, occupied);
+    }
+
+    static long queen(int square, long occupied) {
+        return Magics.rook(square, occupied) | Magics.bishop(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between {@code a} and {@code b}, or 0 if they do not
+     * share a rank, file or diagonal
+     */
+    static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return the whole rank, file or diagonal through {@code a} and {@code b}, or 0 if
+     * there is none
+     */
+    static long line(int a, int b) {
+        return LINE[a][b];
+    }
+}
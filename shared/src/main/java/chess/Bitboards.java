@@ -0,0 +1,86 @@
+package chess;
+
+/**
+ * Square indexing and 64-bit mask helpers shared by the board and move generation.
+ * <p>
+ * Squares are numbered 0..63 with a1 = 0, h1 = 7 and h8 = 63, so bit {@code sq} of a
+ * mask is set when that square is included.
+ */
+final class Bitboards {
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_H = FILE_A << 7;
+    static final long NOT_FILE_A = ~FILE_A;
+    static final long NOT_FILE_H = ~FILE_H;
+    static final long NOT_FILE_AB = ~(FILE_A | FILE_A << 1);
+    static final long NOT_FILE_GH = ~(FILE_H | FILE_H >>> 1);
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_8 = RANK_1 << 56;
+
+    static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private Bitboards() {}
+
+    static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    static int col(int square) {
+        return (square & 7) + 1;
+    }
+
+    static boolean onBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    static long knightAttacks(long knights) {
+        return (knights << 17 & NOT_FILE_A) | (knights << 15 & NOT_FILE_H)
+                | (knights << 10 & NOT_FILE_AB) | (knights << 6 & NOT_FILE_GH)
+                | (knights >>> 17 & NOT_FILE_H) | (knights >>> 15 & NOT_FILE_A)
+                | (knights >>> 10 & NOT_FILE_GH) | (knights >>> 6 & NOT_FILE_AB);
+    }
+
+    static long kingAttacks(long kings) {
+        long sideways = (kings << 1 & NOT_FILE_A) | (kings >>> 1 & NOT_FILE_H);
+        long row = kings | sideways;
+        return sideways | row << 8 | row >>> 8;
+    }
+
+    static long pawnAttacks(long pawns, ChessGame.TeamColor color) {
+        if (color == ChessGame.TeamColor.WHITE) {
+            return (pawns << 9 & NOT_FILE_A) | (pawns << 7 & NOT_FILE_H);
+        }
+        return (pawns >>> 7 & NOT_FILE_A) | (pawns >>> 9 & NOT_FILE_H);
+    }
+
+    static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] d : directions) {
+            int r = row(square), c = col(square);
+            while (true) {
+                r += d[0]; c += d[1];
+                if (!onBoard(r, c)) {
+                    break;
+                }
+                long b = bit(square(r, c));
+                attacks |= b;
+                if ((occupied & b) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+}
@@ -1,15 +1,27 @@
 package chess;
 
-import java.util.Objects;
+import java.util.Arrays;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Pieces are kept in the square array for lookups and mirrored into one 64-bit mask per
+ * color and piece type, so move generation and attack detection can work on whole sets
+ * of squares at once. The masks are rebuilt lazily when the board is created by
+ * reflection (e.g. Gson), which only fills in the square array; that rebuild also
+ * swaps in the shared {@link ChessPiece#of} instances.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
+    private static final int PIECE_TYPES = ChessPiece.PieceType.values().length;
+
     private ChessPiece[][] board;
+    private transient volatile long[] pieceMasks;
+    private transient long[] colorMasks;
+    private transient long zobristKey;
+
     public ChessBoard() {
         board = new ChessPiece[8][8];
     }
@@ -21,7 +33,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece(Bitboards.square(position), piece == null ? null : ChessPiece.of(piece.getTeamColor(), piece.getPieceType()));
     }
 
     /**
@@ -35,15 +47,39 @@ public class ChessBoard {
         return board[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Builds a board from the piece placement field of a FEN string; any later fields
+     * are ignored
+     *
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        Fen.readPlacement(fen, board);
+        return board;
+    }
+
+    /**
+     * @return the piece placement field of FEN for this board, e.g.
+     * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR}
+     */
+    public String toFen() {
+        StringBuilder out = new StringBuilder(72);
+        Fen.writePlacement(this, out);
+        return out.toString();
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
         board = new ChessPiece[8][8];
+        pieceMasks = null;
+        colorMasks = null;
         for (int c = 1; c <= 8; c++) {
-            addPiece(new ChessPosition(2, c), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(7, c), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, c), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, c), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
         ChessPiece.PieceType[] order = {
                 ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
@@ -51,10 +87,167 @@ public class ChessBoard {
                 ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
         };
         for (int c = 1; c <= 8; c++) {
-            addPiece(new ChessPosition(1, c), new ChessPiece(ChessGame.TeamColor.WHITE, order[c - 1]));
-            addPiece(new ChessPosition(8, c), new ChessPiece(ChessGame.TeamColor.BLACK, order[c - 1]));
+            addPiece(ChessPosition.of(1, c), ChessPiece.of(ChessGame.TeamColor.WHITE, order[c - 1]));
+            addPiece(ChessPosition.of(8, c), ChessPiece.of(ChessGame.TeamColor.BLACK, order[c - 1]));
+        }
+    }
+
+    ChessPiece getPiece(int square) {
+        return board[square >>> 3][square & 7];
+    }
+
+    void setPiece(int square, ChessPiece piece) {
+        ensureMasks();
+        ChessPiece old = board[square >>> 3][square & 7];
+        long b = Bitboards.bit(square);
+        if (old != null) {
+            pieceMasks[maskIndex(old)] &= ~b;
+            colorMasks[old.getTeamColor().ordinal()] &= ~b;
+            zobristKey ^= Zobrist.piece(old, square);
         }
+        if (piece != null) {
+            pieceMasks[maskIndex(piece)] |= b;
+            colorMasks[piece.getTeamColor().ordinal()] |= b;
+            zobristKey ^= Zobrist.piece(piece, square);
+        }
+        board[square >>> 3][square & 7] = piece;
     }
+
+    /**
+     * Plays a {@link PackedMove packed move} in place, including the rook hop of a castle,
+     * the pawn removed by en passant and promotion, recording what is needed to take it
+     * back in {@code undo}. The move is assumed to be pseudo-legal for the piece on its
+     * start square.
+     */
+    void make(int move, MoveUndo undo) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = getPiece(from);
+        undo.from = from;
+        undo.to = to;
+        undo.moved = piece;
+        undo.captureSquare = PackedMove.has(move, PackedMove.EN_PASSANT) ? (from & ~7) | (to & 7) : to;
+        undo.captured = getPiece(undo.captureSquare);
+        if (PackedMove.has(move, PackedMove.CASTLE)) {
+            undo.rookFrom = to > from ? (from | 7) : (from & ~7);
+            undo.rookTo = to > from ? to - 1 : to + 1;
+        } else {
+            undo.rookFrom = -1;
+            undo.rookTo = -1;
+        }
+        if (undo.captured != null) {
+            setPiece(undo.captureSquare, null);
+        }
+        setPiece(from, null);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        setPiece(to, promotion == null ? piece : ChessPiece.of(piece.getTeamColor(), promotion));
+        if (undo.rookFrom >= 0) {
+            setPiece(undo.rookTo, getPiece(undo.rookFrom));
+            setPiece(undo.rookFrom, null);
+        }
+    }
+
+    /**
+     * Takes back the move recorded in {@code undo}, restoring the board exactly.
+     */
+    void unmake(MoveUndo undo) {
+        if (undo.rookFrom >= 0) {
+            setPiece(undo.rookFrom, getPiece(undo.rookTo));
+            setPiece(undo.rookTo, null);
+        }
+        setPiece(undo.to, null);
+        setPiece(undo.from, undo.moved);
+        if (undo.captured != null) {
+            setPiece(undo.captureSquare, undo.captured);
+        }
+    }
+
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureMasks();
+        return pieceMasks[color.ordinal() * PIECE_TYPES + type.ordinal()];
+    }
+
+    long occupancy(ChessGame.TeamColor color) {
+        ensureMasks();
+        return colorMasks[color.ordinal()];
+    }
+
+    long occupied() {
+        ensureMasks();
+        return colorMasks[0] | colorMasks[1];
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, kept up to date by every change
+     */
+    long zobristKey() {
+        ensureMasks();
+        return zobristKey;
+    }
+
+    /**
+     * @return the square of {@code color}'s king, read off its piece mask, or -1 if that
+     * side has no king on the board
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        long king = pieces(color, ChessPiece.PieceType.KING);
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return whether any piece of {@code attacker} attacks {@code square}, found by
+     * looking outward from the square with each piece's attack pattern
+     */
+    boolean isAttacked(int square, ChessGame.TeamColor attacker) {
+        return attackersOf(square, attacker, occupied()) != 0;
+    }
+
+    /**
+     * @return mask of {@code attacker}'s pieces that attack {@code square} when the board
+     * holds the pieces in {@code occupied}
+     */
+    long attackersOf(int square, ChessGame.TeamColor attacker, long occupied) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = pieces(attacker, ChessPiece.PieceType.QUEEN);
+        return (Attacks.pawn(defender, square) & pieces(attacker, ChessPiece.PieceType.PAWN))
+                | (Attacks.knight(square) & pieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (Attacks.king(square) & pieces(attacker, ChessPiece.PieceType.KING))
+                | (Attacks.rook(square, occupied) & (pieces(attacker, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(square, occupied) & (pieces(attacker, ChessPiece.PieceType.BISHOP) | queens));
+    }
+
+    private static int maskIndex(ChessPiece piece) {
+        return piece.getTeamColor().ordinal() * PIECE_TYPES + piece.getPieceType().ordinal();
+    }
+
+    /**
+     * Builds the masks if they are missing. They are filled in locally and
+     * {@code pieceMasks} is written last, so readers on other threads see either no
+     * masks or complete ones.
+     */
+    private void ensureMasks() {
+        if (pieceMasks != null) {
+            return;
+        }
+        long[] pieces = new long[2 * PIECE_TYPES];
+        long[] colors = new long[2];
+        long key = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece p = getPiece(sq);
+            if (p != null) {
+                p = ChessPiece.of(p.getTeamColor(), p.getPieceType());
+                board[sq >>> 3][sq & 7] = p;
+                pieces[maskIndex(p)] |= Bitboards.bit(sq);
+                colors[p.getTeamColor().ordinal()] |= Bitboards.bit(sq);
+                key ^= Zobrist.piece(p, sq);
+            }
+        }
+        colorMasks = colors;
+        zobristKey = key;
+        pieceMasks = pieces;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -64,27 +257,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard other = (ChessBoard) o;
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece p1 = this.getPiece(pos);
-                ChessPiece p2 = other.getPiece(pos);
-                if (!Objects.equals(p1, p2)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        ensureMasks();
+        other.ensureMasks();
+        return Arrays.equals(pieceMasks, other.pieceMasks);
     }
     @Override
     public int hashCode() {
-        int result = 1;
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPiece p = getPiece(new ChessPosition(r, c));
-                result = 31 * result + (p == null ? 0 : p.hashCode());
-            }
-        }
-        return result;
+        return Long.hashCode(zobristKey());
     }
 }
@@ -5,9 +5,17 @@ import java.util.*;
 /**
  * Manages a chess game, making moves on a board.
  * <p>
+ * Legal moves are generated in one pass from the checkers and pinned pieces of the
+ * position, and cached for each side until the position changes. Queries leave the
+ * game as it was, publishing a newly generated cache entry with a single write, so
+ * several threads may read one game at once; none may read it while it is being moved.
+ * <p>
  * You may add to this class, but do not alter existing method signatures.
  */
 public class ChessGame {
+    private static final int WHITE_KING_HOME = 4;
+    private static final int BLACK_KING_HOME = 60;
+
     private TeamColor turn;
     private ChessBoard board;
     private boolean whiteKingMoved = false;
@@ -17,6 +25,11 @@ public class ChessGame {
     private boolean blackRookA8Moved = false;
     private boolean blackRookH8Moved = false;
     private ChessMove lastMove = null;
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+    private final transient MoveUndo scratch = new MoveUndo();
+    private transient volatile PositionStatus whiteStatus;
+    private transient volatile PositionStatus blackStatus;
 
     public ChessGame() {
         board = new ChessBoard();
@@ -24,79 +37,222 @@ public class ChessGame {
         turn = TeamColor.WHITE;
     }
 
+    /**
+     * Starts a game on {@code board} with {@code turn} to move and every castling right
+     */
+    ChessGame(ChessBoard board, TeamColor turn) {
+        this.board = board;
+        this.turn = turn;
+    }
+
+    /**
+     * Builds a game from a FEN string; see {@link #toFen()}
+     *
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return the position in Forsyth-Edwards Notation: pieces, side to move, castling
+     * rights, en passant square and move clocks
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
     public TeamColor getTeamTurn() {
         return turn;
     }
 
     public void setTeamTurn(TeamColor team) {
         turn = team;
+        invalidateStatus();
     }
 
     public enum TeamColor {
         WHITE, BLACK
     }
 
+    public enum GameStatus {
+        IN_PROGRESS, CHECK, CHECKMATE, STALEMATE
+    }
+
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece piece = board.getPiece(startPosition);
-        if (piece == null) {
+        if (board.getPiece(startPosition) == null) {
             return null;
         }
-        Collection<ChessMove> valid = new ArrayList<>();
-        Collection<ChessMove> all = piece.pieceMoves(board, startPosition);
-        if (all == null) {
-            all = new ArrayList<>();
-        }
-        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
-            all.addAll(getCastlingMoves(startPosition, piece.getTeamColor()));
-        }
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            all.addAll(getEnPassantMoves(startPosition, piece.getTeamColor()));
+        MoveList moves = new MoveList(32);
+        validMoves(startPosition, moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Same as {@link #validMoves(ChessPosition)}, but appends the moves to {@code out} in
+     * {@link PackedMove} form; nothing is added for an empty square
+     */
+    public void validMoves(ChessPosition startPosition, MoveList out) {
+        int from = Bitboards.square(startPosition);
+        ChessPiece piece = board.getPiece(from);
+        if (piece == null) {
+            return;
         }
-        for (ChessMove m : all) {
-            ChessBoard copy = cloneBoard();
-            ChessPiece moved = copy.getPiece(m.getStartPosition());
-            if (moved == null) {
-                continue;
-            }
-            if (moved.getPieceType() == ChessPiece.PieceType.PAWN && m.getPromotionPiece() != null) {
-                copy.addPiece(m.getEndPosition(), new ChessPiece(moved.getTeamColor(), m.getPromotionPiece()));
-            } else {
-                copy.addPiece(m.getEndPosition(), moved);
-            }
-            copy.addPiece(m.getStartPosition(), null);
-            if (!inCheck(copy, moved.getTeamColor())) {
-                valid.add(m);
+        MoveList legal = status(piece.getTeamColor()).moves;
+        for (int i = 0; i < legal.size(); i++) {
+            if (PackedMove.from(legal.get(i)) == from) {
+                out.add(legal.get(i));
             }
         }
-        return valid;
     }
 
     public void makeMove(ChessMove move) throws InvalidMoveException {
+        // Packing would wrap an off-board square onto a real one.
+        if (!onBoard(move.getStartPosition()) || !onBoard(move.getEndPosition())) {
+            throw new InvalidMoveException();
+        }
         ChessPiece piece = board.getPiece(move.getStartPosition());
         if (piece == null || piece.getTeamColor() != turn) {
             throw new InvalidMoveException();
         }
 
-        Collection<ChessMove> v = validMoves(move.getStartPosition());
-        if (v == null || !v.contains(move)) {
+        int packed = status(turn).moves.find(PackedMove.key(move));
+        if (packed < 0) {
             throw new InvalidMoveException();
         }
 
-        handleCastling(move, piece);
-        handleEnPassant(move, piece);
+        play(packed, scratch);
+        invalidateStatus();
+    }
 
-        ChessPiece toPlace = piece;
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN && move.getPromotionPiece() != null) {
-            toPlace = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
-        }
+    private static boolean onBoard(ChessPosition position) {
+        return Bitboards.onBoard(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * Appends every legal move of the side to move to {@code out} in {@link PackedMove} form
+     */
+    public void legalMoves(MoveList out) {
+        out.addAll(status(turn).moves);
+    }
 
-        board.addPiece(move.getEndPosition(), toPlace);
-        board.addPiece(move.getStartPosition(), null);
+    /**
+     * @return whether the side to move is in check, checkmated or stalemated
+     */
+    public GameStatus getStatus() {
+        PositionStatus current = status(turn);
+        if (current.moves.isEmpty()) {
+            return current.inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        return current.inCheck ? GameStatus.CHECK : GameStatus.IN_PROGRESS;
+    }
 
+    /**
+     * Plays a legal packed move without validating it, saving what {@link #takeBack}
+     * needs in {@code undo}
+     */
+    void play(int move, MoveUndo undo) {
+        ChessPiece piece = board.getPiece(PackedMove.from(move));
+        undo.movedFlags = movedFlags();
+        undo.lastMove = lastMove;
+        undo.halfmoveClock = halfmoveClock;
+        board.make(move, undo);
         markPieceMoved(piece, move);
+        lastMove = PackedMove.toChessMove(move);
+        boolean reversible = piece.getPieceType() != ChessPiece.PieceType.PAWN && undo.captured == null;
+        halfmoveClock = reversible ? halfmoveClock + 1 : 0;
+        if (turn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        turn = opponent(turn);
+    }
 
+    void takeBack(MoveUndo undo) {
+        turn = opponent(turn);
+        if (turn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        halfmoveClock = undo.halfmoveClock;
+        lastMove = undo.lastMove;
+        setMovedFlags(undo.movedFlags);
+        board.unmake(undo);
+    }
+
+    /**
+     * @return the king and rook moved flags as bits 0-5, in field order
+     */
+    int movedFlags() {
+        return (whiteKingMoved ? 1 : 0) | (blackKingMoved ? 2 : 0)
+                | (whiteRookA1Moved ? 4 : 0) | (whiteRookH1Moved ? 8 : 0)
+                | (blackRookA8Moved ? 16 : 0) | (blackRookH8Moved ? 32 : 0);
+    }
+
+    void setMovedFlags(int flags) {
+        whiteKingMoved = (flags & 1) != 0;
+        blackKingMoved = (flags & 2) != 0;
+        whiteRookA1Moved = (flags & 4) != 0;
+        whiteRookH1Moved = (flags & 8) != 0;
+        blackRookA8Moved = (flags & 16) != 0;
+        blackRookH8Moved = (flags & 32) != 0;
+    }
+
+    /**
+     * @return the number of moves since the last capture or pawn move, for the
+     * fifty-move rule
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the move number, starting at 1 and increasing after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the half-move count implied by the move number and side to move; 0 for a
+     * new game and one more after every move
+     */
+    public int getPly() {
+        return 2 * (fullmoveNumber - 1) + (turn == TeamColor.BLACK ? 1 : 0);
+    }
+
+    ChessMove lastMove() {
+        return lastMove;
+    }
+
+    void setLastMove(ChessMove move) {
         lastMove = move;
-        turn = (turn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE);
+    }
+
+    void setClocks(int halfmoveClock, int fullmoveNumber) {
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Records a double pawn push past {@code square} as the last move, so a pawn of the
+     * side to move can capture there en passant
+     */
+    void setEnPassantSquare(int square) {
+        boolean whitePushed = Bitboards.row(square) == 3;
+        int from = whitePushed ? square - 8 : square + 8;
+        int to = whitePushed ? square + 8 : square - 8;
+        lastMove = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), null);
+    }
+
+    /**
+     * Replaces the castling rights, using the same bits as {@link #castlingRights()}
+     */
+    void setCastlingRights(int rights) {
+        whiteKingMoved = (rights & 3) == 0;
+        blackKingMoved = (rights & 12) == 0;
+        whiteRookH1Moved = (rights & 1) == 0;
+        whiteRookA1Moved = (rights & 2) == 0;
+        blackRookH8Moved = (rights & 4) == 0;
+        blackRookA8Moved = (rights & 8) == 0;
     }
 
     public boolean isInCheck(TeamColor teamColor) {
@@ -104,175 +260,242 @@ public class ChessGame {
     }
 
     public boolean isInCheckmate(TeamColor teamColor) {
-        return isInCheck(teamColor) && noMoves(teamColor);
+        return isInCheck(teamColor) && status(teamColor).moves.isEmpty();
     }
 
     public boolean isInStalemate(TeamColor teamColor) {
-        return !isInCheck(teamColor) && noMoves(teamColor);
+        return !isInCheck(teamColor) && status(teamColor).moves.isEmpty();
     }
 
     public void setBoard(ChessBoard board) {
         this.board = board;
+        invalidateStatus();
     }
 
     public ChessBoard getBoard() {
         return board;
     }
 
-    private boolean inCheck(ChessBoard board, TeamColor team) {
-        ChessPosition king = findKing(board, team);
-        if (king == null) {
-            return true;
+    /**
+     * @return a 64-bit Zobrist key for the position: pieces, side to move, castling
+     * rights and en passant file. The board keeps its part of the key current on every
+     * change, so this costs a few XORs and equal positions always share a key.
+     */
+    public long positionKey() {
+        long key = board.zobristKey() ^ Zobrist.castling(castlingRights());
+        if (turn == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        int ep = enPassantTarget(turn);
+        if (ep >= 0) {
+            key ^= Zobrist.enPassantFile(ep & 7);
+        }
+        return key;
+    }
+
+    /**
+     * @return the castling rights still held, as bit 0 white kingside, 1 white queenside,
+     * 2 black kingside and 3 black queenside
+     */
+    int castlingRights() {
+        int rights = 0;
+        if (!whiteKingMoved) {
+            rights |= (whiteRookH1Moved ? 0 : 1) | (whiteRookA1Moved ? 0 : 2);
         }
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                if (isEnemyThreateningKing(board, team, r, c, king)) {
-                    return true;
-                }
-            }
+        if (!blackKingMoved) {
+            rights |= (blackRookH8Moved ? 0 : 4) | (blackRookA8Moved ? 0 : 8);
         }
-        return false;
+        return rights;
     }
 
-    private boolean isEnemyThreateningKing(ChessBoard board, TeamColor team, int r, int c, ChessPosition king) {
-        ChessPosition pos = new ChessPosition(r, c);
-        ChessPiece piece = board.getPiece(pos);
-        if (piece == null || piece.getTeamColor() == team) {
-            return false;
+    /**
+     * @return the square a pawn of {@code capturer} could capture onto en passant, or -1
+     */
+    int enPassantTarget(TeamColor capturer) {
+        if (lastMove == null) {
+            return -1;
         }
-        Collection<ChessMove> moves = piece.pieceMoves(board, pos);
-        if (moves == null) {
-            return false;
+        int lastFrom = Bitboards.square(lastMove.getStartPosition());
+        int lastTo = Bitboards.square(lastMove.getEndPosition());
+        ChessPiece pushed = board.getPiece(lastTo);
+        if (pushed == null || pushed.getPieceType() != ChessPiece.PieceType.PAWN
+                || pushed.getTeamColor() == capturer || Math.abs(lastTo - lastFrom) != 16) {
+            return -1;
         }
-        for (ChessMove move : moves) {
-            if (move.getEndPosition().equals(king)) {
-                return true;
-            }
+        int target = (lastFrom + lastTo) / 2;
+        if ((Attacks.pawn(pushed.getTeamColor(), target) & board.pieces(capturer, ChessPiece.PieceType.PAWN)) == 0) {
+            return -1;
         }
-        return false;
+        return target;
     }
 
-    private ChessPosition findKing(ChessBoard b, TeamColor team) {
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece p = b.getPiece(pos);
-                if (p != null && p.getTeamColor() == team && p.getPieceType() == ChessPiece.PieceType.KING) {
-                    return pos;
+    /**
+     * @return the cached legal moves of {@code team}, regenerated if the position key or
+     * board has changed since they were computed. Checking the key as well as
+     * invalidating on moves keeps the cache right when the board is edited directly.
+     */
+    private PositionStatus status(TeamColor team) {
+        PositionStatus current = team == TeamColor.WHITE ? whiteStatus : blackStatus;
+        long key = positionKey();
+        if (current != null && current.matches(board, key)) {
+            return current;
+        }
+        MoveList moves = new MoveList();
+        boolean inCheck = addLegalMoves(team, moves);
+        current = new PositionStatus(board, key, moves, inCheck);
+        if (team == TeamColor.WHITE) {
+            whiteStatus = current;
+        } else {
+            blackStatus = current;
+        }
+        return current;
+    }
+
+    private void invalidateStatus() {
+        whiteStatus = null;
+        blackStatus = null;
+    }
+
+    /**
+     * Appends every legal move of {@code team} to {@code out}. Checkers and pinned pieces
+     * are found once: with two checkers only the king may move, with one every other move
+     * must capture the checker or block it, and a pinned piece stays on its pin line.
+     *
+     * @return whether {@code team} is in check
+     */
+    private boolean addLegalMoves(TeamColor team, MoveList out) {
+        int king = board.kingSquare(team);
+        if (king < 0) {
+            return true;
+        }
+        TeamColor enemy = opponent(team);
+        long occupied = board.occupied();
+        long checkers = board.attackersOf(king, enemy, occupied);
+        long pinned = pinnedPieces(king, team, occupied);
+        long targets = checkers == 0 ? -1L : Attacks.between(king, Long.numberOfTrailingZeros(checkers)) | checkers;
+
+        long pieces = board.occupancy(team);
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            ChessPiece piece = board.getPiece(from);
+            int start = out.size();
+            if (from == king) {
+                piece.generateMoves(board, from, out);
+                keepSafeKingMoves(king, enemy, occupied, start, out);
+                if (checkers == 0) {
+                    addCastlingMoves(king, team, out);
                 }
+                continue;
+            }
+            if (Long.bitCount(checkers) > 1) {
+                continue;
+            }
+            long allowed = targets;
+            if ((pinned & Bitboards.bit(from)) != 0) {
+                allowed &= Attacks.line(king, from);
+            }
+            piece.generateMoves(board, from, out);
+            keepMovesTo(allowed, start, out);
+            if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                addEnPassantMove(from, team, out);
             }
         }
-        return null;
+        return checkers != 0;
     }
 
-    private ChessBoard cloneBoard() {
-        ChessBoard copy = new ChessBoard();
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece p = board.getPiece(pos);
-                if (p != null) {
-                    copy.addPiece(pos, new ChessPiece(p.getTeamColor(), p.getPieceType()));
-                }
+    /**
+     * @return mask of {@code team}'s pieces that are the only piece between their king
+     * and an enemy slider
+     */
+    private long pinnedPieces(int king, TeamColor team, long occupied) {
+        TeamColor enemy = opponent(team);
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, 0L) & (board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, 0L) & (board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & board.occupancy(team);
             }
         }
-        return copy;
+        return pinned;
     }
 
-    private boolean noMoves(TeamColor team) {
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition pos = new ChessPosition(r, c);
-                ChessPiece p = board.getPiece(pos);
-                if (p != null && p.getTeamColor() == team) {
-                    Collection<ChessMove> moves = validMoves(pos);
-                    if (moves != null && !moves.isEmpty()) {
-                        return false;
-                    }
-                }
+    private static void keepMovesTo(long allowed, int start, MoveList out) {
+        int kept = start;
+        for (int i = start; i < out.size(); i++) {
+            int m = out.get(i);
+            if ((allowed & Bitboards.bit(PackedMove.to(m))) != 0) {
+                out.set(kept++, m);
             }
         }
-        return true;
+        out.truncate(kept);
     }
 
-    private Collection<ChessMove> getCastlingMoves(ChessPosition kingPos, TeamColor team) {
-        List<ChessMove> castles = new ArrayList<>();
-        ChessPiece king = board.getPiece(kingPos);
-        if (king == null || king.getPieceType() != ChessPiece.PieceType.KING) {
-            return castles;
+    /**
+     * Drops king moves onto attacked squares. The king is taken off the board for the
+     * test, so it cannot hide from a slider behind itself.
+     */
+    private void keepSafeKingMoves(int king, TeamColor enemy, long occupied, int start, MoveList out) {
+        long withoutKing = occupied & ~Bitboards.bit(king);
+        int kept = start;
+        for (int i = start; i < out.size(); i++) {
+            int m = out.get(i);
+            if (board.attackersOf(PackedMove.to(m), enemy, withoutKing) == 0) {
+                out.set(kept++, m);
+            }
         }
-        if (inCheck(board, team)) {
-            return castles;
+        out.truncate(kept);
+    }
+
+    private boolean inCheck(ChessBoard board, TeamColor team) {
+        int king = board.kingSquare(team);
+        return king < 0 || board.isAttacked(king, opponent(team));
+    }
+
+    private static TeamColor opponent(TeamColor team) {
+        return team == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
+    private void addCastlingMoves(int kingSquare, TeamColor team, MoveList out) {
+        if (kingSquare != (team == TeamColor.WHITE ? WHITE_KING_HOME : BLACK_KING_HOME)) {
+            return;
         }
-        int row = kingPos.getRow();
-        ChessPiece rookK = board.getPiece(new ChessPosition(row, 8));
-        if (canCastle(kingPos, team, rookK, 8, new int[]{6, 7})) {
-            castles.add(new ChessMove(kingPos, new ChessPosition(row, 7), null));
+        if (canCastle(kingSquare, team, true)) {
+            out.add(PackedMove.of(kingSquare, kingSquare + 2, PackedMove.CASTLE));
         }
-
-        ChessPiece rookQ = board.getPiece(new ChessPosition(row, 1));
-        if (canCastle(kingPos, team, rookQ, 1, new int[]{2, 3, 4})) {
-            castles.add(new ChessMove(kingPos, new ChessPosition(row, 3), null));
+        if (canCastle(kingSquare, team, false)) {
+            out.add(PackedMove.of(kingSquare, kingSquare - 2, PackedMove.CASTLE));
         }
-
-        return castles;
     }
 
-    private boolean canCastle(ChessPosition kingPos, TeamColor team, ChessPiece rook, int rookCol, int[] emptyCols) {
+    private boolean canCastle(int kingSquare, TeamColor team, boolean kingside) {
+        ChessPiece rook = board.getPiece(kingside ? kingSquare + 3 : kingSquare - 4);
         if (rook == null || rook.getPieceType() != ChessPiece.PieceType.ROOK || rook.getTeamColor() != team) {
             return false;
         }
-        if (isKingMoved(team) || isRookMoved(team, rookCol)) {
+        if (isKingMoved(team) || isRookMoved(team, kingside ? 8 : 1)) {
             return false;
         }
 
-        int row = kingPos.getRow();
-        for (int col : emptyCols) {
-            if (board.getPiece(new ChessPosition(row, col)) != null) {
-                return false;
-            }
-        }
-
-        for (int i = 0; i < emptyCols.length; i++) {
-            int col = (i == emptyCols.length - 1) ? emptyCols[emptyCols.length - 1] : emptyCols[i];
-            if (isSquareAttacked(board, new ChessPosition(row, col), team)) {
-                return false;
-            }
+        long between = kingside ? 0b11L << (kingSquare + 1) : 0b111L << (kingSquare - 3);
+        if ((board.occupied() & between) != 0) {
+            return false;
         }
 
-        return true;
+        TeamColor enemy = opponent(team);
+        int step = kingside ? 1 : -1;
+        return !board.isAttacked(kingSquare + step, enemy) && !board.isAttacked(kingSquare + 2 * step, enemy);
     }
 
     private boolean isKingMoved(TeamColor team) {
         return team == TeamColor.WHITE ? whiteKingMoved : blackKingMoved;
     }
 
-    private boolean isSquareAttacked(ChessBoard board, ChessPosition square, TeamColor team) {
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                if (isEnemyPieceAttacking(board, square, team, r, c)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private boolean isEnemyPieceAttacking(ChessBoard board, ChessPosition target, TeamColor team, int r, int c) {
-        ChessPosition pos = new ChessPosition(r, c);
-        ChessPiece piece = board.getPiece(pos);
-        if (piece == null || piece.getTeamColor() == team) {
-            return false;
-        }
-
-        for (ChessMove move : piece.pieceMoves(board, pos)) {
-            if (move.getEndPosition().equals(target)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private boolean isRookMoved(TeamColor team, int rookColumn) {
         if (team == TeamColor.WHITE) {
             if (rookColumn == 1) {
@@ -292,93 +515,45 @@ public class ChessGame {
         return true;
     }
 
-    private Collection<ChessMove> getEnPassantMoves(ChessPosition pawnPos, TeamColor team) {
-        List<ChessMove> res = new ArrayList<>();
-        if (lastMove == null) {
-            return res;
-        }
-        ChessPiece pawn = board.getPiece(pawnPos);
-        if (pawn == null || pawn.getPieceType() != ChessPiece.PieceType.PAWN) {
-            return res;
-        }
-        ChessPiece lastMovedPiece = board.getPiece(lastMove.getEndPosition());
-        if (lastMovedPiece == null || lastMovedPiece.getPieceType() != ChessPiece.PieceType.PAWN) {
-            return res;
-        }
-        if (lastMovedPiece.getTeamColor() == team) {
-            return res;
-        }
-        int movedDistance = Math.abs(lastMove.getStartPosition().getRow() - lastMove.getEndPosition().getRow());
-        if (movedDistance != 2) {
-            return res;
-        }
-        if (lastMove.getEndPosition().getRow() == pawnPos.getRow() &&
-                Math.abs(lastMove.getEndPosition().getColumn() - pawnPos.getColumn()) == 1) {
-            int dir = (team == TeamColor.WHITE) ? 1 : -1;
-            ChessPosition target = new ChessPosition(pawnPos.getRow() + dir, lastMove.getEndPosition().getColumn());
-
-            ChessBoard copy = cloneBoard();
-            ChessPiece copyPawn = copy.getPiece(pawnPos);
-            if (copyPawn == null) {
-                return res;
-            }
-            copy.addPiece(target, copyPawn);
-            copy.addPiece(pawnPos, null);
-            copy.addPiece(lastMove.getEndPosition(), null);
-            if (!inCheck(copy, team)) {
-                res.add(new ChessMove(pawnPos, target, null));
-            }
-        }
-        return res;
-    }
-
-    private void handleCastling(ChessMove move, ChessPiece piece) {
-        if (piece.getPieceType() != ChessPiece.PieceType.KING) {
-            return;
-        }
-        int row = move.getStartPosition().getRow();
-        int diff = move.getEndPosition().getColumn() - move.getStartPosition().getColumn();
-        if (Math.abs(diff) == 2) {
-            if (diff > 0) {
-                ChessPiece rook = board.getPiece(new ChessPosition(row, 8));
-                board.addPiece(new ChessPosition(row, 6), rook);
-                board.addPiece(new ChessPosition(row, 8), null);
-            } else {
-                ChessPiece rook = board.getPiece(new ChessPosition(row, 1));
-                board.addPiece(new ChessPosition(row, 4), rook);
-                board.addPiece(new ChessPosition(row, 1), null);
-            }
-        }
-    }
-    private void handleEnPassant(ChessMove move, ChessPiece piece) {
-        if (piece.getPieceType() != ChessPiece.PieceType.PAWN) {
+    /**
+     * Adds the en passant capture from {@code from} if there is one and it is legal. It
+     * removes two pieces from the same rank, which pin detection does not cover, so the
+     * king's attackers are worked out again on the occupancy after the capture, leaving
+     * out the captured pawn.
+     */
+    private void addEnPassantMove(int from, TeamColor team, MoveList out) {
+        int target = enPassantTarget(team);
+        if (target < 0 || (Attacks.pawn(team, from) & Bitboards.bit(target)) == 0) {
             return;
         }
-        if (move.getStartPosition().getColumn() != move.getEndPosition().getColumn() &&
-                board.getPiece(move.getEndPosition()) == null) {
-            ChessPosition captured = new ChessPosition(move.getStartPosition().getRow(), move.getEndPosition().getColumn());
-            board.addPiece(captured, null);
+        int king = board.kingSquare(team);
+        long captured = Bitboards.bit(team == TeamColor.WHITE ? target - 8 : target + 8);
+        long after = (board.occupied() & ~Bitboards.bit(from) & ~captured) | Bitboards.bit(target);
+        if ((board.attackersOf(king, opponent(team), after) & ~captured) == 0) {
+            out.add(PackedMove.of(from, target, PackedMove.EN_PASSANT | PackedMove.CAPTURE));
         }
     }
 
-    private void markPieceMoved(ChessPiece piece, ChessMove move) {
+    private void markPieceMoved(ChessPiece piece, int move) {
         if (piece.getPieceType() == ChessPiece.PieceType.KING) {
             if (piece.getTeamColor() == TeamColor.WHITE) {
                 whiteKingMoved = true;
             } else {
                 blackKingMoved = true;
             }
-        } else if (piece.getPieceType() == ChessPiece.PieceType.ROOK) {
-            ChessPosition start = move.getStartPosition();
-            if (start.equals(new ChessPosition(1, 1))) {
-                whiteRookA1Moved = true;
-            } else if (start.equals(new ChessPosition(1, 8))) {
-                whiteRookH1Moved = true;
-            } else if (start.equals(new ChessPosition(8, 1))) {
-                blackRookA8Moved = true;
-            } else if (start.equals(new ChessPosition(8, 8))) {
-                blackRookH8Moved = true;
-            }
+        }
+        // A rook leaving its corner, or being captured there, loses its castling right.
+        markRookMoved(PackedMove.from(move));
+        markRookMoved(PackedMove.to(move));
+    }
+
+    private void markRookMoved(int square) {
+        switch (square) {
+            case 0 -> whiteRookA1Moved = true;
+            case 7 -> whiteRookH1Moved = true;
+            case 56 -> blackRookA8Moved = true;
+            case 63 -> blackRookH8Moved = true;
+            default -> { }
         }
     }
 
@@ -396,6 +571,6 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, turn);
+        return Long.hashCode(board.zobristKey() ^ (turn == TeamColor.BLACK ? Zobrist.BLACK_TO_MOVE : 0L));
     }
 }
@@ -0,0 +1,82 @@
+package chess;
+
+/**
+ * Versioned binary form of a {@link ChessGame}, a fraction of the size of its JSON and
+ * built without reflection.
+ * <p>
+ * Version 1 is {@value #V1_LENGTH} bytes:
+ * <ul>
+ *     <li>byte 0: the format version</li>
+ *     <li>bytes 1-32: one nibble per square, a1 first and low nibble first; 0 is empty,
+ *     otherwise {@code color * 6 + type + 1}</li>
+ *     <li>byte 33: the king and rook moved flags in bits 0-5, black to move in bit 6</li>
+ *     <li>bytes 34-35: the last move's {@link PackedMove} key, or 0xFFFF for none</li>
+ *     <li>bytes 36-37 and 38-39: the halfmove clock and fullmove number</li>
+ * </ul>
+ * Multi-byte values are big-endian and unsigned.
+ */
+public final class ChessGameCodec {
+    public static final byte VERSION = 1;
+
+    private static final int V1_LENGTH = 40;
+    private static final int NO_MOVE = 0xFFFF;
+    private static final int BLACK_TO_MOVE = 1 << 6;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    private ChessGameCodec() {}
+
+    public static byte[] encode(ChessGame game) {
+        byte[] out = new byte[V1_LENGTH];
+        out[0] = VERSION;
+        ChessBoard board = game.getBoard();
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = board.getPiece(sq);
+            if (piece != null) {
+                int code = piece.getTeamColor().ordinal() * TYPES.length + piece.getPieceType().ordinal() + 1;
+                out[1 + (sq >>> 1)] |= (byte) (code << ((sq & 1) << 2));
+            }
+        }
+        out[33] = (byte) (game.movedFlags() | (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0));
+        ChessMove lastMove = game.lastMove();
+        putShort(out, 34, lastMove == null ? NO_MOVE : PackedMove.key(lastMove));
+        putShort(out, 36, game.getHalfmoveClock());
+        putShort(out, 38, game.getFullmoveNumber());
+        return out;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code data} is not in a known version of the format
+     */
+    public static ChessGame decode(byte[] data) {
+        if (data == null || data.length == 0 || data[0] != VERSION || data.length != V1_LENGTH) {
+            throw new IllegalArgumentException("Unsupported chess game encoding");
+        }
+        ChessBoard board = new ChessBoard();
+        for (int sq = 0; sq < 64; sq++) {
+            int code = data[1 + (sq >>> 1)] >>> ((sq & 1) << 2) & 0xF;
+            if (code > 2 * TYPES.length) {
+                throw new IllegalArgumentException("Invalid piece code " + code);
+            }
+            if (code != 0) {
+                board.setPiece(sq, ChessPiece.of(COLORS[(code - 1) / TYPES.length], TYPES[(code - 1) % TYPES.length]));
+            }
+        }
+        int flags = data[33];
+        ChessGame game = new ChessGame(board, (flags & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.setMovedFlags(flags);
+        int lastMove = getShort(data, 34);
+        game.setLastMove(lastMove == NO_MOVE ? null : PackedMove.toChessMove(lastMove));
+        game.setClocks(getShort(data, 36), getShort(data, 38));
+        return game;
+    }
+
+    private static void putShort(byte[] out, int index, int value) {
+        out[index] = (byte) (value >>> 8);
+        out[index + 1] = (byte) value;
+    }
+
+    private static int getShort(byte[] data, int index) {
+        return (data[index] & 0xFF) << 8 | data[index + 1] & 0xFF;
+    }
+}
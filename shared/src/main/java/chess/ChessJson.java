@@ -0,0 +1,341 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson configured with streaming adapters for the chess types, so the client and server
+ * exchange games without reflection. The wire format uses the usual chess notations:
+ * <ul>
+ *     <li>a position is a square name, e.g. {@code "e2"}</li>
+ *     <li>a move is in coordinate notation, e.g. {@code "e2e4"} or {@code "a7a8q"}</li>
+ *     <li>a piece is its FEN letter, uppercase for white, e.g. {@code "N"}</li>
+ *     <li>a board is the FEN piece placement</li>
+ *     <li>a game is {@code {"fen": ..., "lastMove": ...}}</li>
+ * </ul>
+ * The adapters also read the objects that plain reflective Gson wrote, so JSON stored
+ * before they existed still loads.
+ */
+public final class ChessJson {
+    private static final String PIECE_LETTERS = "kqbnrp";
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final Gson GSON = builder().create();
+
+    private ChessJson() {}
+
+    /**
+     * @return a shared, thread-safe Gson instance with the chess adapters registered
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * @return a new builder with the chess adapters registered, for callers that need
+     * further configuration
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(ChessPosition.class, new PositionAdapter().nullSafe())
+                .registerTypeAdapter(ChessMove.class, new MoveAdapter().nullSafe())
+                .registerTypeAdapter(ChessPiece.class, new PieceAdapter().nullSafe())
+                .registerTypeAdapter(ChessBoard.class, new BoardAdapter().nullSafe())
+                .registerTypeAdapter(ChessGame.class, new GameAdapter().nullSafe());
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return Bitboards.onBoard(position.getRow(), position.getColumn());
+    }
+
+    private static int parseSquare(String name, int index) {
+        if (name.length() < index + 2) {
+            throw new JsonParseException("Invalid square: " + name);
+        }
+        int col = name.charAt(index) - 'a' + 1;
+        int row = name.charAt(index + 1) - '0';
+        if (!Bitboards.onBoard(row, col)) {
+            throw new JsonParseException("Invalid square: " + name);
+        }
+        return Bitboards.square(row, col);
+    }
+
+    private static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+
+    private static final class PositionAdapter extends TypeAdapter<ChessPosition> {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            if (onBoard(position)) {
+                out.value(squareName(Bitboards.square(position)));
+                return;
+            }
+            out.beginObject();
+            out.name("row").value(position.getRow());
+            out.name("col").value(position.getColumn());
+            out.endObject();
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String name = in.nextString();
+                if (name.length() != 2) {
+                    throw new JsonParseException("Invalid square: " + name);
+                }
+                return ChessPosition.of(parseSquare(name, 0));
+            }
+            int row = 0, col = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "row" -> row = in.nextInt();
+                    case "col" -> col = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return ChessPosition.of(row, col);
+        }
+    }
+
+    private static final class MoveAdapter extends TypeAdapter<ChessMove> {
+        private final PositionAdapter positions = new PositionAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessMove move) throws IOException {
+            if (onBoard(move.getStartPosition()) && onBoard(move.getEndPosition())) {
+                out.value(PackedMove.toString(PackedMove.key(move)));
+                return;
+            }
+            out.beginObject();
+            out.name("start");
+            positions.write(out, move.getStartPosition());
+            out.name("end");
+            positions.write(out, move.getEndPosition());
+            if (move.getPromotionPiece() != null) {
+                out.name("promotion").value(move.getPromotionPiece().name());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessMove read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String text = in.nextString();
+                if (text.length() != 4 && text.length() != 5) {
+                    throw new JsonParseException("Invalid move: " + text);
+                }
+                ChessPiece.PieceType promotion = null;
+                if (text.length() == 5) {
+                    int type = PIECE_LETTERS.indexOf(text.charAt(4));
+                    if (type < 0) {
+                        throw new JsonParseException("Invalid move: " + text);
+                    }
+                    promotion = TYPES[type];
+                }
+                return new ChessMove(ChessPosition.of(parseSquare(text, 0)), ChessPosition.of(parseSquare(text, 2)), promotion);
+            }
+            ChessPosition start = null, end = null;
+            ChessPiece.PieceType promotion = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "start" -> start = readNullable(in, positions);
+                    case "end" -> end = readNullable(in, positions);
+                    case "promotion" -> promotion = readEnum(in, ChessPiece.PieceType.class);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChessMove(start, end, promotion);
+        }
+    }
+
+    private static final class PieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            char letter = PIECE_LETTERS.charAt(piece.getPieceType().ordinal());
+            out.value(String.valueOf(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter));
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                String text = in.nextString();
+                int type = text.length() == 1 ? PIECE_LETTERS.indexOf(Character.toLowerCase(text.charAt(0))) : -1;
+                if (type < 0) {
+                    throw new JsonParseException("Invalid piece: " + text);
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(text.charAt(0)) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                return ChessPiece.of(color, TYPES[type]);
+            }
+            ChessGame.TeamColor color = null;
+            ChessPiece.PieceType type = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "color" -> color = readEnum(in, ChessGame.TeamColor.class);
+                    case "type" -> type = readEnum(in, ChessPiece.PieceType.class);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (color == null || type == null) {
+                throw new JsonParseException("Piece is missing its color or type");
+            }
+            return ChessPiece.of(color, type);
+        }
+    }
+
+    private static final class BoardAdapter extends TypeAdapter<ChessBoard> {
+        private final PieceAdapter pieces = new PieceAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            out.value(board.toFen());
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.STRING) {
+                try {
+                    return ChessBoard.fromFen(in.nextString());
+                } catch (IllegalArgumentException e) {
+                    throw new JsonParseException(e.getMessage(), e);
+                }
+            }
+            ChessBoard board = new ChessBoard();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!in.nextName().equals("board") || in.peek() == JsonToken.NULL) {
+                    in.skipValue();
+                    continue;
+                }
+                in.beginArray();
+                for (int row = 1; in.hasNext(); row++) {
+                    in.beginArray();
+                    for (int col = 1; in.hasNext(); col++) {
+                        ChessPiece piece = readNullable(in, pieces);
+                        if (piece != null) {
+                            board.addPiece(ChessPosition.of(row, col), piece);
+                        }
+                    }
+                    in.endArray();
+                }
+                in.endArray();
+            }
+            in.endObject();
+            return board;
+        }
+    }
+
+    private static final class GameAdapter extends TypeAdapter<ChessGame> {
+        private final BoardAdapter boards = new BoardAdapter();
+        private final MoveAdapter moves = new MoveAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            out.beginObject();
+            out.name("fen").value(game.toFen());
+            if (game.lastMove() != null) {
+                out.name("lastMove");
+                moves.write(out, game.lastMove());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            String fen = null;
+            ChessBoard board = null;
+            ChessGame.TeamColor turn = ChessGame.TeamColor.WHITE;
+            ChessMove lastMove = null;
+            int movedFlags = 0;
+            int halfmoveClock = 0;
+            int fullmoveNumber = 1;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "fen" -> fen = in.nextString();
+                    case "lastMove" -> lastMove = readNullable(in, moves);
+                    case "turn" -> turn = readEnum(in, ChessGame.TeamColor.class);
+                    case "board" -> board = readNullable(in, boards);
+                    case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                    case "fullmoveNumber" -> fullmoveNumber = in.nextInt();
+                    default -> {
+                        int flag = movedFlag(name);
+                        if (flag != 0 && in.nextBoolean()) {
+                            movedFlags |= flag;
+                        } else if (flag == 0) {
+                            in.skipValue();
+                        }
+                    }
+                }
+            }
+            in.endObject();
+
+            ChessGame game;
+            if (fen != null) {
+                try {
+                    game = ChessGame.fromFen(fen);
+                } catch (IllegalArgumentException e) {
+                    throw new JsonParseException(e.getMessage(), e);
+                }
+            } else {
+                game = new ChessGame(board == null ? new ChessBoard() : board, turn == null ? ChessGame.TeamColor.WHITE : turn);
+                game.setMovedFlags(movedFlags);
+                game.setClocks(halfmoveClock, fullmoveNumber);
+            }
+            if (lastMove != null) {
+                game.setLastMove(lastMove);
+            }
+            return game;
+        }
+
+        /**
+         * @return the {@link ChessGame#movedFlags()} bit for a field of the reflective
+         * format, or 0
+         */
+        private static int movedFlag(String field) {
+            return switch (field) {
+                case "whiteKingMoved" -> 1;
+                case "blackKingMoved" -> 2;
+                case "whiteRookA1Moved" -> 4;
+                case "whiteRookH1Moved" -> 8;
+                case "blackRookA8Moved" -> 16;
+                case "blackRookH8Moved" -> 32;
+                default -> 0;
+            };
+        }
+    }
+
+    private static <T> T readNullable(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return adapter.read(in);
+    }
+
+    private static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String name = in.nextString();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Invalid " + type.getSimpleName() + ": " + name, e);
+        }
+    }
+}
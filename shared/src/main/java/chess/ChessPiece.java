@@ -9,6 +9,16 @@ import java.util.*;
  * signature of the existing methods.
  */
 public class ChessPiece {
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor c : ChessGame.TeamColor.values()) {
+            for (PieceType t : PieceType.values()) {
+                PIECES[c.ordinal() * 6 + t.ordinal()] = new ChessPiece(c, t);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor color;
     private final PieceType type;
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
@@ -16,6 +26,13 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * @return the shared, immutable instance for this color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -50,91 +67,80 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        List<ChessMove> moves = new ArrayList<>();
-        switch(type) {
-            case KING -> kingMoves(board, myPosition, moves);
-            case QUEEN -> slideMoves(board, myPosition, moves, new int [][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}});
-            case ROOK -> slideMoves(board, myPosition, moves, new int [][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}});
-            case BISHOP -> slideMoves(board, myPosition, moves, new int [][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}});
-            case KNIGHT -> knightMoves(board, myPosition, moves);
-            case PAWN -> pawnMoves(board, myPosition, moves);
-        }
-        return moves;
+        MoveList moves = new MoveList(32);
+        pieceMoves(board, myPosition, moves);
+        return moves.toChessMoves();
     }
-    private void slideMoves(ChessBoard b, ChessPosition p, List<ChessMove> m, int[][]dirs) {
-        for (int[]d:dirs) {
-            int r = p.getRow(), c = p.getColumn();
-            while(true) {
-                r += d[0]; c += d[1];
-                if (r < 1 || r > 8 || c < 1 || c > 8) {
-                    break;
-                }
-                ChessPosition np = new ChessPosition(r, c);
-                ChessPiece other = b.getPiece(np);
-                if (other == null) {
-                    m.add(new ChessMove(p, np, null));
-                } else { if (other.color != color) {
-                    m.add(new ChessMove(p, np, null));
-                } break; }
-            }
-        }
-    }
-    private void kingMoves(ChessBoard b, ChessPosition p, List<ChessMove> m) {
-        int[][]d = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-        addMoves(b, p, m, d);
-    }
-    private void knightMoves(ChessBoard b, ChessPosition p, List<ChessMove> m) {
-        int [][]j = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
-        addMoves(b, p, m, j);
+
+    /**
+     * Same as {@link #pieceMoves(ChessBoard, ChessPosition)}, but appends the moves to
+     * {@code out} in {@link PackedMove} form instead of allocating move objects
+     */
+    public void pieceMoves(ChessBoard board, ChessPosition myPosition, MoveList out) {
+        generateMoves(board, Bitboards.square(myPosition), out);
     }
-    private void pawnMoves(ChessBoard b, ChessPosition p, List<ChessMove> m) {
-        int dir = color == ChessGame.TeamColor.WHITE ? 1 : -1;
-        int start = color == ChessGame.TeamColor.WHITE ? 2 : 7;
-        int promo = color == ChessGame.TeamColor.WHITE ? 8 : 1;
-        int r = p.getRow(),c = p.getColumn();
-        ChessPosition one = new ChessPosition(r + dir, c);
-        if (r + dir >= 1 &&  r + dir <= 8 && b.getPiece(one) == null) {
-            promoteOrAdd(p, one, m, promo);
-            if (r == start) {
-                ChessPosition two = new ChessPosition(r + 2 * dir, c);
-                if (b.getPiece(two) == null) {
-                    m.add(new ChessMove(p, two, null));
-                }
+
+    void generateMoves(ChessBoard board, int from, MoveList out) {
+        long enemies = board.occupancy(color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        if (type != PieceType.PAWN) {
+            long targets = attacks(board, from) & ~board.occupancy(color);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                out.add(PackedMove.of(from, to, (enemies & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0));
             }
+            return;
         }
-        for (int dc:new int[]{-1, 1}) {
-            int nc = c +dc;
-            if (nc >= 1 && nc <= 8 && r + dir >= 1 && r + dir <= 8) {
-                ChessPosition diag = new ChessPosition(r + dir, nc);
-                ChessPiece o = b.getPiece(diag);
-                if (o != null && o.color != color) {
-                    promoteOrAdd(p, diag, m, promo);
-                }
-            }
+        long b = Bitboards.bit(from);
+        long empty = ~board.occupied();
+        long single, twice;
+        if (color == ChessGame.TeamColor.WHITE) {
+            single = b << 8 & empty;
+            twice = (b & Bitboards.RANK_1 << 8) << 16 & empty & single << 8;
+        } else {
+            single = b >>> 8 & empty;
+            twice = (b & Bitboards.RANK_8 >>> 8) >>> 16 & empty & single >>> 8;
+        }
+        if (twice != 0) {
+            out.add(PackedMove.of(from, Long.numberOfTrailingZeros(twice), PackedMove.DOUBLE_PUSH));
+        }
+        if (single != 0) {
+            addPawnMove(from, Long.numberOfTrailingZeros(single), 0, out);
+        }
+        long captures = Attacks.pawn(color, from) & enemies;
+        while (captures != 0) {
+            int to = Long.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            addPawnMove(from, to, PackedMove.CAPTURE, out);
         }
     }
-    private void promoteOrAdd(ChessPosition s, ChessPosition e, List<ChessMove> m, int promo) {
-        if (e.getRow() == promo) {
-            m.add(new ChessMove(s, e, PieceType.QUEEN));
-            m.add(new ChessMove(s, e, PieceType.ROOK));
-            m.add(new ChessMove(s, e, PieceType.BISHOP));
-            m.add(new ChessMove(s, e, PieceType.KNIGHT));
+
+    private static void addPawnMove(int from, int to, int flags, MoveList out) {
+        if (to < 8 || to >= 56) {
+            out.add(PackedMove.of(from, to, PieceType.QUEEN, flags));
+            out.add(PackedMove.of(from, to, PieceType.ROOK, flags));
+            out.add(PackedMove.of(from, to, PieceType.BISHOP, flags));
+            out.add(PackedMove.of(from, to, PieceType.KNIGHT, flags));
         } else {
-            m.add(new ChessMove(s, e, null));
+            out.add(PackedMove.of(from, to, flags));
         }
     }
-    private void addMoves(ChessBoard b, ChessPosition p, List<ChessMove> m, int[][] deltas) {
-        for (int[] delta : deltas) {
-            int r = p.getRow() + delta[0], c = p.getColumn() + delta[1];
-            if (r >= 1 && r <= 8 && c >= 1 && c <= 8) {
-                ChessPosition np = new ChessPosition(r, c);
-                ChessPiece o = b.getPiece(np);
-                if (o == null || o.color != color) {
-                    m.add(new ChessMove(p, np, null));
-                }
-            }
-        }
+
+    /**
+     * @return mask of the squares this piece attacks from the given square, including
+     * squares held by either side
+     */
+    long attacks(ChessBoard board, int square) {
+        return switch (type) {
+            case KING -> Attacks.king(square);
+            case QUEEN -> Attacks.queen(square, board.occupied());
+            case ROOK -> Attacks.rook(square, board.occupied());
+            case BISHOP -> Attacks.bishop(square, board.occupied());
+            case KNIGHT -> Attacks.knight(square);
+            case PAWN -> Attacks.pawn(color, square);
+        };
     }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -7,11 +7,34 @@ package chess;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            SQUARES[sq] = new ChessPosition((sq >>> 3) + 1, (sq & 7) + 1);
+        }
+    }
+
     private final int row, col;
     public ChessPosition(int row, int col) {
         this.row = row; this.col = col;
     }
 
+    /**
+     * @return the shared instance for an on-board square, or a new position for
+     * coordinates off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
+    static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
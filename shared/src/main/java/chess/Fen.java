@@ -0,0 +1,186 @@
+package chess;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation, e.g. the starting position
+ * {@value #START}.
+ * <p>
+ * The parser walks the string once without splitting it. Only the piece placement is
+ * required; missing trailing fields default to white to move, no castling rights, no en
+ * passant square and clocks of 0 and 1. An en passant square is written only when a
+ * pawn can actually capture there, matching {@link ChessGame#positionKey()}, so equal
+ * positions always produce the same string.
+ */
+final class Fen {
+    static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "kqbnrp";
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Fen() {}
+
+    static ChessGame parse(String fen) {
+        ChessBoard board = new ChessBoard();
+        int i = readPlacement(fen, board);
+
+        i = skipSpaces(fen, i);
+        ChessGame.TeamColor turn = ChessGame.TeamColor.WHITE;
+        if (i < fen.length()) {
+            char c = fen.charAt(i++);
+            if (c == 'b') {
+                turn = ChessGame.TeamColor.BLACK;
+            } else if (c != 'w') {
+                throw invalid(fen, "side to move");
+            }
+        }
+        ChessGame game = new ChessGame(board, turn);
+
+        i = skipSpaces(fen, i);
+        int rights = 0;
+        while (i < fen.length() && fen.charAt(i) != ' ') {
+            rights |= switch (fen.charAt(i++)) {
+                case 'K' -> 1;
+                case 'Q' -> 2;
+                case 'k' -> 4;
+                case 'q' -> 8;
+                case '-' -> 0;
+                default -> throw invalid(fen, "castling rights");
+            };
+        }
+        game.setCastlingRights(rights);
+
+        i = skipSpaces(fen, i);
+        if (i < fen.length() && fen.charAt(i) != '-') {
+            if (i + 1 >= fen.length()) {
+                throw invalid(fen, "en passant square");
+            }
+            int col = fen.charAt(i) - 'a' + 1;
+            int row = fen.charAt(i + 1) - '0';
+            if (!Bitboards.onBoard(row, col) || (row != 3 && row != 6)) {
+                throw invalid(fen, "en passant square");
+            }
+            game.setEnPassantSquare(Bitboards.square(row, col));
+            i += 2;
+        } else {
+            i++;
+        }
+
+        i = skipSpaces(fen, i);
+        int halfmove = 0;
+        while (i < fen.length() && fen.charAt(i) != ' ') {
+            halfmove = halfmove * 10 + digit(fen, i++);
+        }
+        i = skipSpaces(fen, i);
+        int fullmove = i < fen.length() ? 0 : 1;
+        while (i < fen.length() && fen.charAt(i) != ' ') {
+            fullmove = fullmove * 10 + digit(fen, i++);
+        }
+        game.setClocks(halfmove, Math.max(fullmove, 1));
+        return game;
+    }
+
+    /**
+     * Fills {@code board} from the placement field at the start of {@code fen}
+     *
+     * @return the index just after the placement field
+     */
+    static int readPlacement(String fen, ChessBoard board) {
+        int row = 8, col = 1, i = 0;
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw invalid(fen, "piece placement");
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || col > 8) {
+                    throw invalid(fen, "piece placement");
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.setPiece(Bitboards.square(row, col++), ChessPiece.of(color, TYPES[type]));
+            }
+            if (col > 9) {
+                throw invalid(fen, "piece placement");
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw invalid(fen, "piece placement");
+        }
+        return i;
+    }
+
+    static void writePlacement(ChessBoard board, StringBuilder out) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(piece.getPieceType().ordinal());
+                out.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+    }
+
+    static String format(ChessGame game) {
+        StringBuilder out = new StringBuilder(90);
+        writePlacement(game.getBoard(), out);
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int rights = game.castlingRights();
+        if (rights == 0) {
+            out.append('-');
+        } else {
+            for (int bit = 0; bit < 4; bit++) {
+                if ((rights & 1 << bit) != 0) {
+                    out.append("KQkq".charAt(bit));
+                }
+            }
+        }
+
+        int ep = game.enPassantTarget(game.getTeamTurn());
+        out.append(' ');
+        if (ep < 0) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + (ep & 7))).append((char) ('1' + (ep >>> 3)));
+        }
+        return out.append(' ').append(game.getHalfmoveClock())
+                .append(' ').append(game.getFullmoveNumber()).toString();
+    }
+
+    private static int skipSpaces(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int digit(String fen, int i) {
+        char c = fen.charAt(i);
+        if (c < '0' || c > '9') {
+            throw invalid(fen, "move clocks");
+        }
+        return c - '0';
+    }
+
+    private static IllegalArgumentException invalid(String fen, String field) {
+        return new IllegalArgumentException("Invalid FEN " + field + ": " + fen);
+    }
+}
@@ -0,0 +1,94 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A growable buffer of {@link PackedMove packed moves}. Callers keep one around and
+ * {@link #clear()} it between uses, so generating moves does not allocate.
+ */
+public final class MoveList {
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(64);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 8)];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            int[] grown = new int[size * 2];
+            System.arraycopy(moves, 0, grown, 0, size);
+            moves = grown;
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Appends every move in {@code other}
+     */
+    void addAll(MoveList other) {
+        if (size + other.size > moves.length) {
+            int[] grown = new int[Math.max(size * 2, size + other.size)];
+            System.arraycopy(moves, 0, grown, 0, size);
+            moves = grown;
+        }
+        System.arraycopy(other.moves, 0, moves, size, other.size);
+        size += other.size;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the first move whose squares and promotion match {@code key}, or -1
+     */
+    int find(int key) {
+        for (int i = 0; i < size; i++) {
+            if ((moves[i] & PackedMove.KEY_MASK) == key) {
+                return moves[i];
+            }
+        }
+        return -1;
+    }
+
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * @return the moves from {@code start} onwards as {@link ChessMove} objects
+     */
+    public List<ChessMove> toChessMoves(int start) {
+        List<ChessMove> list = new ArrayList<>(size - start);
+        for (int i = start; i < size; i++) {
+            list.add(PackedMove.toChessMove(moves[i]));
+        }
+        return list;
+    }
+
+    public List<ChessMove> toChessMoves() {
+        return toChessMoves(0);
+    }
+}
@@ -0,0 +1,20 @@
+package chess;
+
+/**
+ * Everything {@link ChessBoard#unmake(MoveUndo)} needs to take back a move made with
+ * {@link ChessBoard#make(int, MoveUndo)}, plus the game state that
+ * {@link ChessGame#takeBack(MoveUndo)} restores. Instances are reused between moves, so
+ * trying a move on the board does not allocate.
+ */
+final class MoveUndo {
+    int from;
+    int to;
+    ChessPiece moved;
+    ChessPiece captured;
+    int captureSquare;
+    int rookFrom = -1;
+    int rookTo = -1;
+    int movedFlags;
+    int halfmoveClock;
+    ChessMove lastMove;
+}
@@ -0,0 +1,71 @@
+package chess;
+
+/**
+ * Moves packed into a single {@code int}, used by the allocation-free move generation
+ * paths that fill a {@link MoveList}.
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square (a1 = 0 .. h8 = 63),
+ * bits 12-14 the promotion piece ({@code PieceType.ordinal() + 1}, or 0 for none) and
+ * the bits above that the {@code CAPTURE}, {@code CASTLE}, {@code EN_PASSANT} and
+ * {@code DOUBLE_PUSH} flags.
+ */
+public final class PackedMove {
+    public static final int CAPTURE = 1 << 15;
+    public static final int CASTLE = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    /** The bits that identify a move on its own, without the flags. */
+    static final int KEY_MASK = (1 << 15) - 1;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {}
+
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from | to << 6 | (promotion == null ? 0 : (promotion.ordinal() + 1) << 12) | flags;
+    }
+
+    static int of(int from, int to, int flags) {
+        return from | to << 6 | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    public static ChessPiece.PieceType promotion(int move) {
+        int p = move >>> 12 & 7;
+        return p == 0 ? null : TYPES[p - 1];
+    }
+
+    public static boolean has(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * @return the packed key (squares and promotion, no flags) of an object move
+     */
+    public static int key(ChessMove move) {
+        return of(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotion(move));
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. {@code e2e4} or {@code a7a8q}
+     */
+    public static String toString(int move) {
+        int from = from(move), to = to(move);
+        ChessPiece.PieceType promotion = promotion(move);
+        return "" + (char) ('a' + (from & 7)) + (from / 8 + 1) + (char) ('a' + (to & 7)) + (to / 8 + 1)
+                + (promotion == null ? "" : "kqbnrp".charAt(promotion.ordinal()));
+    }
+}
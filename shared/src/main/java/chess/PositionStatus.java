@@ -0,0 +1,25 @@
+package chess;
+
+/**
+ * The legal moves and check state of one side in one position. {@link ChessGame} keeps
+ * one per color until the position key or the board changes, so a move followed by any
+ * number of status and move queries generates moves once. It is never changed after it
+ * is built, so threads reading the same game can share it.
+ */
+final class PositionStatus {
+    final MoveList moves;
+    final boolean inCheck;
+    private final ChessBoard board;
+    private final long key;
+
+    PositionStatus(ChessBoard board, long key, MoveList moves, boolean inCheck) {
+        this.board = board;
+        this.key = key;
+        this.moves = moves;
+        this.inCheck = inCheck;
+    }
+
+    boolean matches(ChessBoard board, long key) {
+        return this.board == board && this.key == key;
+    }
+}
@@ -0,0 +1,69 @@
+package chess;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of one key per
+ * piece on its square plus keys for the side to move, each castling right still held
+ * and the file of a capturable en passant pawn, so a move updates it with a few XORs.
+ * The keys come from a fixed seed and are stable across runs.
+ */
+final class Zobrist {
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x2D358DCCAA6C78A5L;
+        for (long[] keys : PIECE_SQUARE) {
+            for (int sq = 0; sq < 64; sq++) {
+                seed = splitMix(seed);
+                keys[sq] = mix(seed);
+            }
+        }
+        long[] rights = new long[4];
+        for (int i = 0; i < 4; i++) {
+            seed = splitMix(seed);
+            rights[i] = mix(seed);
+        }
+        for (int mask = 0; mask < 16; mask++) {
+            for (int i = 0; i < 4; i++) {
+                if ((mask & 1 << i) != 0) {
+                    CASTLING[mask] ^= rights[i];
+                }
+            }
+        }
+        for (int f = 0; f < 8; f++) {
+            seed = splitMix(seed);
+            EN_PASSANT_FILE[f] = mix(seed);
+        }
+        seed = splitMix(seed);
+        BLACK_TO_MOVE = mix(seed);
+    }
+
+    private Zobrist() {}
+
+    static long piece(ChessPiece piece, int square) {
+        return PIECE_SQUARE[piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal()][square];
+    }
+
+    /**
+     * @param rights bit 0 white kingside, 1 white queenside, 2 black kingside, 3 black queenside
+     */
+    static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    static long enPassantFile(int file) {
+        return EN_PASSANT_FILE[file];
+    }
+
+    private static long splitMix(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,17 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * The listing view of a game: who is playing and how far along it is, without the board.
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName,
+                          ChessGame.GameStatus status, int moveCount) {
+
+    public static GameSummary of(GameData g) {
+        ChessGame game = g.game();
+        return new GameSummary(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName(),
+                game == null ? ChessGame.GameStatus.IN_PROGRESS : game.getStatus(),
+                game == null ? 0 : game.getPly());
+    }
+}
@@ -0,0 +1,5 @@
+package service.requests;
+
+import chess.ChessMove;
+
+public record MakeMoveRequest(int gameID, ChessMove move) {}
\ No newline at end of file
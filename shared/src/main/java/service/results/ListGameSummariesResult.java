@@ -0,0 +1,7 @@
+package service.results;
+
+import model.GameSummary;
+
+import java.util.List;
+
+public record ListGameSummariesResult(List<GameSummary> games, Integer nextCursor) {}
@@ -0,0 +1,7 @@
+package service.results;
+
+import model.GameData;
+
+import java.util.List;
+
+public record ListGamesResult(List<GameData> games, Integer nextCursor) {}
@@ -0,0 +1,41 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessGameCodecTests {
+
+    @Test
+    @DisplayName("Reference Positions Round Trip")
+    public void roundTrip() {
+        for (String fen : Perft.POSITIONS.values()) {
+            ChessGame game = ChessGame.fromFen(fen);
+            byte[] bytes = ChessGameCodec.encode(game);
+            Assertions.assertEquals(40, bytes.length);
+            ChessGame decoded = ChessGameCodec.decode(bytes);
+            Assertions.assertEquals(game, decoded);
+            Assertions.assertEquals(fen, decoded.toFen());
+        }
+    }
+
+    @Test
+    @DisplayName("Game State Survives Encoding")
+    public void gameState() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/3p4/8/4P3/R3K2R w Kq - 7 30");
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        ChessGame decoded = ChessGameCodec.decode(ChessGameCodec.encode(game));
+        Assertions.assertEquals("r3k2r/8/8/8/3pP3/8/8/R3K2R b Kq e3 0 30", decoded.toFen());
+        Assertions.assertEquals(new Gson().toJson(game), new Gson().toJson(decoded));
+    }
+
+    @Test
+    @DisplayName("Unknown Versions Are Rejected")
+    public void unknownVersion() {
+        byte[] bytes = ChessGameCodec.encode(new ChessGame());
+        bytes[0] = 2;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(bytes));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(new byte[0]));
+    }
+}
@@ -0,0 +1,60 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessJsonTests {
+    private final Gson gson = ChessJson.gson();
+
+    private static ChessGame playedGame() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/3p4/8/4P3/R3K2R w Kq - 7 30");
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        return game;
+    }
+
+    @Test
+    @DisplayName("Compact Wire Format")
+    public void wireFormat() throws InvalidMoveException {
+        Assertions.assertEquals("\"e2\"", gson.toJson(ChessPosition.of(2, 5)));
+        Assertions.assertEquals("\"a7a8q\"", gson.toJson(new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN)));
+        Assertions.assertEquals("\"n\"", gson.toJson(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT)));
+        Assertions.assertEquals("{\"fen\":\"r3k2r/8/8/8/3pP3/8/8/R3K2R b Kq e3 0 30\",\"lastMove\":\"e2e4\"}", gson.toJson(playedGame()));
+    }
+
+    @Test
+    @DisplayName("Games Round Trip")
+    public void roundTrip() throws InvalidMoveException {
+        ChessGame game = playedGame();
+        ChessGame read = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(game, read);
+        Assertions.assertEquals(game.toFen(), read.toFen());
+        Assertions.assertEquals(game.positionKey(), read.positionKey());
+        Assertions.assertNull(gson.fromJson("null", ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("Reflective JSON Still Loads")
+    public void legacyFormat() throws InvalidMoveException {
+        ChessGame game = playedGame();
+        String legacy = new Gson().toJson(game);
+        ChessGame read = gson.fromJson(legacy, ChessGame.class);
+        Assertions.assertEquals(game, read);
+        Assertions.assertEquals(game.toFen(), read.toFen());
+        Assertions.assertEquals(legacy, new Gson().toJson(read));
+
+        ChessMove promotion = new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.ROOK);
+        Assertions.assertEquals(promotion, gson.fromJson(new Gson().toJson(promotion), ChessMove.class));
+    }
+
+    @Test
+    @DisplayName("Malformed Values Are Rejected")
+    public void malformed() {
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"z9\"", ChessPosition.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"e2e4x\"", ChessMove.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"x\"", ChessPiece.class));
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("{\"fen\":\"8/8\"}", ChessGame.class));
+    }
+}
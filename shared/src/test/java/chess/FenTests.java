@@ -0,0 +1,70 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FenTests {
+
+    private static ChessMove move(String m) {
+        return new ChessMove(ChessPosition.of(m.charAt(1) - '0', m.charAt(0) - 'a' + 1),
+                ChessPosition.of(m.charAt(3) - '0', m.charAt(2) - 'a' + 1), null);
+    }
+
+    @Test
+    @DisplayName("New Game Writes the Starting Position")
+    public void startPosition() {
+        Assertions.assertEquals(Fen.START, new ChessGame().toFen());
+        Assertions.assertEquals(new ChessGame(), ChessGame.fromFen(Fen.START));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", new ChessGame().getBoard().toFen());
+    }
+
+    @Test
+    @DisplayName("Reference Positions Round Trip")
+    public void roundTrip() {
+        for (String fen : Perft.POSITIONS.values()) {
+            ChessGame game = ChessGame.fromFen(fen);
+            Assertions.assertEquals(fen, game.toFen());
+            Assertions.assertEquals(game.positionKey(), ChessGame.fromFen(game.toFen()).positionKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Moves Update Clocks and En Passant Square")
+    public void clocksAndEnPassant() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String m : new String[] {"e2e4", "g8f6", "e4e5", "f6g8", "g1f3", "d7d5"}) {
+            game.makeMove(move(m));
+        }
+        Assertions.assertEquals("rnbqkbnr/ppp1pppp/8/3pP3/8/5N2/PPPP1PPP/RNBQKB1R w KQkq d6 0 4", game.toFen());
+
+        game.makeMove(move("f3g1"));
+        Assertions.assertEquals("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 1 4", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Imported En Passant Square Allows the Capture")
+    public void importEnPassant() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        Assertions.assertTrue(game.validMoves(ChessPosition.of(5, 5)).contains(move("e5f6")));
+        game.makeMove(move("e5f6"));
+        Assertions.assertNull(game.getBoard().getPiece(ChessPosition.of(5, 6)));
+    }
+
+    @Test
+    @DisplayName("Trailing Fields Are Optional")
+    public void defaults() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3");
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Malformed FEN Is Rejected")
+    public void malformed() {
+        for (String fen : new String[] {"", "8/8/8/8/8/8/8", "9/8/8/8/8/8/8/8 w - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w KQkq - 0 1", "8/8/8/8/8/8/8/8 x - - 0 1",
+                "8/8/8/8/8/8/8/8 w KX - 0 1", "8/8/8/8/8/8/8/8 w - e4 0 1", "8/8/8/8/8/8/8/8 w - - a 1"}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class GameStatusTests {
+
+    private static ChessMove move(String m) {
+        return new ChessMove(ChessPosition.of(m.charAt(1) - '0', m.charAt(0) - 'a' + 1),
+                ChessPosition.of(m.charAt(3) - '0', m.charAt(2) - 'a' + 1), null);
+    }
+
+    private static ChessGame play(String... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String m : moves) {
+            game.makeMove(move(m));
+        }
+        return game;
+    }
+
+    @Test
+    @DisplayName("Status Follows the Game")
+    public void statusFollowsMoves() throws InvalidMoveException {
+        ChessGame game = play("f2f3", "e7e5", "g2g4");
+        Assertions.assertEquals(ChessGame.GameStatus.IN_PROGRESS, game.getStatus());
+        game.makeMove(move("d8h4"));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.validMoves(ChessPosition.of(1, 5)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Off-Board Moves are Rejected")
+    public void offBoardMovesRejected() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(1, 9), null)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(0, 1), new ChessPosition(2, 1), null)));
+        Assertions.assertEquals(ChessPiece.PieceType.ROOK, game.getBoard().getPiece(ChessPosition.of(1, 1)).getPieceType());
+        Assertions.assertNull(game.getBoard().getPiece(ChessPosition.of(2, 1)));
+    }
+
+    @Test
+    @DisplayName("Direct Board Edits Refresh the Cached Status")
+    public void boardEditsRefreshStatus() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        game.setBoard(board);
+        Assertions.assertEquals(3, game.validMoves(ChessPosition.of(1, 1)).size());
+
+        board.addPiece(ChessPosition.of(8, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        Assertions.assertEquals(1, game.validMoves(ChessPosition.of(1, 1)).size());
+
+        board.addPiece(ChessPosition.of(7, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+    }
+
+    @Test
+    @DisplayName("Changing the Turn Refreshes the Cached Status")
+    public void turnChangeRefreshesStatus() {
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        Assertions.assertEquals(20, moves.size());
+
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        moves.clear();
+        game.legalMoves(moves);
+        Assertions.assertEquals(20, moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            Assertions.assertTrue(PackedMove.from(moves.get(i)) >= 48);
+        }
+    }
+
+    @Test
+    @DisplayName("En Passant Cannot Expose the King Along the Rank")
+    public void enPassantRespectsRankPin() {
+        ChessGame pinned = ChessGame.fromFen("8/8/8/K2pP2r/8/8/8/7k w - d6 0 1");
+        Assertions.assertFalse(pinned.validMoves(ChessPosition.of(5, 5)).contains(move("e5d6")));
+
+        ChessGame free = ChessGame.fromFen("8/8/8/3pP2r/K7/8/8/7k w - d6 0 1");
+        Assertions.assertTrue(free.validMoves(ChessPosition.of(5, 5)).contains(move("e5d6")));
+    }
+
+    @Test
+    @DisplayName("Queries Leave the Game Unchanged")
+    public void queriesHaveNoSideEffects() throws Exception {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        String fen = game.toFen();
+        long key = game.positionKey();
+        Thread[] readers = new Thread[8];
+        AtomicBoolean mismatch = new AtomicBoolean();
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                for (int n = 0; n < 2_000; n++) {
+                    if (game.validMoves(ChessPosition.of(5, 5)).size() != 2
+                            || game.getStatus() != ChessGame.GameStatus.IN_PROGRESS
+                            || game.isInCheck(ChessGame.TeamColor.BLACK)) {
+                        mismatch.set(true);
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assertions.assertFalse(mismatch.get());
+        Assertions.assertEquals(fen, game.toFen());
+        Assertions.assertEquals(key, game.positionKey());
+    }
+}
@@ -0,0 +1,126 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Perft (performance test) driver: counts the leaf nodes of the legal move tree to a
+ * fixed depth. The counts for the standard positions are well known, so a mismatch pins
+ * down a move generation bug, and the node rate measures raw generator speed.
+ * <p>
+ * Run {@code main} with {@code [position] [depth] [threads] [divide]}, e.g.
+ * {@code kiwipete 4 8}, where position is one of {@link #POSITIONS} or a FEN string.
+ */
+public class Perft {
+    public static final Map<String, String> POSITIONS = Map.of(
+            "start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    );
+
+    private final ChessGame game;
+    private final MoveList[] moves;
+    private final MoveUndo[] undos;
+
+    public Perft(ChessGame game, int maxDepth) {
+        this.game = game;
+        this.moves = new MoveList[maxDepth + 1];
+        this.undos = new MoveUndo[maxDepth + 1];
+        for (int i = 0; i <= maxDepth; i++) {
+            moves[i] = new MoveList();
+            undos[i] = new MoveUndo();
+        }
+    }
+
+    public long count(int depth) {
+        return count(depth, 0);
+    }
+
+    private long count(int depth, int ply) {
+        MoveList list = moves[ply];
+        list.clear();
+        game.legalMoves(list);
+        if (depth == 1) {
+            return list.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            game.play(list.get(i), undos[ply]);
+            nodes += count(depth - 1, ply + 1);
+            game.takeBack(undos[ply]);
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the node count below each root move, in coordinate notation
+     */
+    public Map<String, Long> divide(int depth) {
+        Map<String, Long> result = new java.util.TreeMap<>();
+        MoveList root = new MoveList();
+        game.legalMoves(root);
+        MoveUndo undo = new MoveUndo();
+        for (int i = 0; i < root.size(); i++) {
+            game.play(root.get(i), undo);
+            result.put(PackedMove.toString(root.get(i)), depth <= 1 ? 1 : count(depth - 1));
+            game.takeBack(undo);
+        }
+        return result;
+    }
+
+    /**
+     * Splits the root moves across {@code threads} workers, each with its own copy of
+     * the position.
+     */
+    public static long countParallel(String fen, int depth, int threads) throws Exception {
+        if (depth <= 1 || threads <= 1) {
+            return new Perft(ChessGame.fromFen(fen), depth).count(depth);
+        }
+        MoveList root = new MoveList();
+        ChessGame.fromFen(fen).legalMoves(root);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> parts = new ArrayList<>();
+            for (int i = 0; i < root.size(); i++) {
+                int move = root.get(i);
+                parts.add(pool.submit(() -> {
+                    ChessGame copy = ChessGame.fromFen(fen);
+                    copy.play(move, new MoveUndo());
+                    return new Perft(copy, depth - 1).count(depth - 1);
+                }));
+            }
+            long nodes = 0;
+            for (Future<Long> part : parts) {
+                nodes += part.get();
+            }
+            return nodes;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String position = args.length > 0 ? args[0] : "start";
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        boolean divide = args.length > 3 && args[3].equals("divide");
+        String fen = POSITIONS.getOrDefault(position, position);
+
+        if (divide) {
+            new Perft(ChessGame.fromFen(fen), depth).divide(depth).forEach((m, n) -> System.out.println(m + ": " + n));
+        }
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long nodes = countParallel(fen, d, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("depth %d  nodes %,d  time %.3fs  %,.0f nodes/s%n", d, nodes, seconds, nodes / seconds);
+        }
+    }
+}
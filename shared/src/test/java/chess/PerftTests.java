@@ -0,0 +1,97 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class PerftTests {
+
+    private static long perft(String position, int depth) {
+        return new Perft(ChessGame.fromFen(Perft.POSITIONS.get(position)), depth).count(depth);
+    }
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startPosition() {
+        Assertions.assertEquals(20, perft("start", 1));
+        Assertions.assertEquals(400, perft("start", 2));
+        Assertions.assertEquals(8_902, perft("start", 3));
+        Assertions.assertEquals(197_281, perft("start", 4));
+    }
+
+    @Test
+    @DisplayName("Kiwipete: Castling, Pins and En Passant")
+    public void kiwipete() {
+        Assertions.assertEquals(48, perft("kiwipete", 1));
+        Assertions.assertEquals(2_039, perft("kiwipete", 2));
+        Assertions.assertEquals(97_862, perft("kiwipete", 3));
+    }
+
+    @Test
+    @DisplayName("Endgame: Discovered Checks Along the Rank")
+    public void position3() {
+        Assertions.assertEquals(14, perft("position3", 1));
+        Assertions.assertEquals(191, perft("position3", 2));
+        Assertions.assertEquals(2_812, perft("position3", 3));
+        Assertions.assertEquals(43_238, perft("position3", 4));
+    }
+
+    @Test
+    @DisplayName("Promotions With Captures")
+    public void position4() {
+        Assertions.assertEquals(6, perft("position4", 1));
+        Assertions.assertEquals(264, perft("position4", 2));
+        Assertions.assertEquals(9_467, perft("position4", 3));
+    }
+
+    @Test
+    @DisplayName("Promotion Into Check")
+    public void position5() {
+        Assertions.assertEquals(44, perft("position5", 1));
+        Assertions.assertEquals(1_486, perft("position5", 2));
+        Assertions.assertEquals(62_379, perft("position5", 3));
+    }
+
+    @Test
+    @DisplayName("Middlegame Without Castling Rights")
+    public void position6() {
+        Assertions.assertEquals(46, perft("position6", 1));
+        Assertions.assertEquals(2_079, perft("position6", 2));
+        Assertions.assertEquals(89_890, perft("position6", 3));
+    }
+
+    @Test
+    @DisplayName("Divide Sums to Total")
+    public void divide() {
+        Map<String, Long> split = new Perft(ChessGame.fromFen(Perft.POSITIONS.get("kiwipete")), 2).divide(2);
+        Assertions.assertEquals(48, split.size());
+        Assertions.assertEquals(2_039, split.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(43, split.get("e1g1"));
+    }
+
+    @Test
+    @DisplayName("Parallel Count Matches Single Thread")
+    public void parallel() throws Exception {
+        Assertions.assertEquals(97_862, Perft.countParallel(Perft.POSITIONS.get("kiwipete"), 3, 4));
+    }
+
+    @Test
+    @DisplayName("Take Back Restores Board and Position Key")
+    public void takeBackRestores() {
+        ChessGame game = ChessGame.fromFen(Perft.POSITIONS.get("kiwipete"));
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        MoveUndo undo = new MoveUndo();
+        for (int i = 0; i < moves.size(); i++) {
+            ChessBoard before = ChessGame.fromFen(Perft.POSITIONS.get("kiwipete")).getBoard();
+            long key = game.positionKey();
+            game.play(moves.get(i), undo);
+            Assertions.assertNotEquals(key, game.positionKey(), PackedMove.toString(moves.get(i)));
+            game.takeBack(undo);
+            Assertions.assertEquals(key, game.positionKey(), PackedMove.toString(moves.get(i)));
+            Assertions.assertEquals(before, game.getBoard(), PackedMove.toString(moves.get(i)));
+        }
+    }
+}